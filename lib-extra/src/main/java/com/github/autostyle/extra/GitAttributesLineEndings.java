@@ -20,6 +20,7 @@ import static com.github.autostyle.extra.LibExtraPreconditions.requireElementsNo
 import com.github.autostyle.FileSignature;
 import com.github.autostyle.LazyForwardingEquality;
 import com.github.autostyle.LineEnding;
+import com.github.autostyle.ThrowingEx;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.eclipse.jgit.attributes.Attribute;
 import org.eclipse.jgit.attributes.AttributesNode;
@@ -71,8 +72,10 @@ public final class GitAttributesLineEndings {
   static class Policy extends LazyForwardingEquality<FileState> implements LineEnding.Policy {
     private static final long serialVersionUID = 1L;
 
-    final transient File rootDir;
-    final transient File projectDir;
+    /** Serialized, so a deserialized copy (e.g. from the configuration cache) can read the git configuration again. */
+    final File rootDir;
+    final File projectDir;
+    @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
     final transient Supplier<Iterable<File>> toFormat;
 
     Policy(File rootDir, File projectDir, Supplier<Iterable<File>> toFormat) {
@@ -95,7 +98,13 @@ public final class GitAttributesLineEndings {
     @Override
     public String getEndingFor(File file) {
       if (runtime == null) {
-        runtime = state().atRuntime();
+        FileState state = state();
+        if (state.repoConfig == null) {
+          // The git configuration is not serialized, so the deserialized copy reads it again.
+          // The runtime discovers .gitattributes of the files lazily, so the list of the files is not needed
+          state = ThrowingEx.get(() -> new FileState(rootDir, projectDir, Collections.emptyList()));
+        }
+        runtime = state.atRuntime();
       }
       return runtime.getEndingFor(file);
     }
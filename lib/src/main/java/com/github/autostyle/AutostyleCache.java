@@ -14,78 +14,316 @@
  * limitations under the License.
  */
 package com.github.autostyle;
-
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
 import java.net.URLClassLoader;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Autostyle global cache. {@link AutostyleCache#clear()} should be called
  * when Autostyle is no longer in use to release any resources it has grabbed.
+ *
+ * Classloaders are reference-counted via {@link Lease}: the ones that are not leased
+ * are closed when they stay idle for too long, when there are too many of them,
+ * or when the heap runs low. That allows to keep the classloaders warm between builds
+ * in a long-living process, so {@link #clear()} is not required after each build.
  */
 public final class AutostyleCache {
-  /** Allows comparing keys based on their serialization. */
-  static final class SerializedKey {
-    final byte[] serialized;
-    final int hashCode;
+  private static final Logger logger = Logger.getLogger(AutostyleCache.class.getName());
+
+  /** A cached classloader along with the number of its active leases. */
+  static final class Entry {
+    final StateFingerprint key;
+    final long jarBytes;
+    /** Completed by the thread that created the entry, the other threads wait for it. */
+    final CompletableFuture<URLClassLoader> loader = new CompletableFuture<>();
 
-    SerializedKey(Serializable key) {
-      Objects.requireNonNull(key);
-      serialized = LazyForwardingEquality.toBytes(key);
-      hashCode = Arrays.hashCode(serialized);
+    private int references = 1; // the creator holds the first reference
+    /** Set when the classloader is handed out without a lease, then it is closed only by {@link #clear()}. */
+    private boolean pinned;
+    private boolean closed;
+    private long lastUsedNanos = System.nanoTime();
+
+    Entry(StateFingerprint key, long jarBytes) {
+      this.key = key;
+      this.jarBytes = jarBytes;
     }
 
-    @Override
-    public final boolean equals(Object other) {
-      return other instanceof SerializedKey
-          && Arrays.equals(serialized, ((SerializedKey) other).serialized);
+    synchronized boolean retain() {
+      if (closed) {
+        return false;
+      }
+      references++;
+      lastUsedNanos = System.nanoTime();
+      return true;
+    }
+
+    synchronized void release() {
+      references--;
+      lastUsedNanos = System.nanoTime();
+    }
+
+    synchronized long lastUsedNanos() {
+      return lastUsedNanos;
+    }
+
+    synchronized void pin() {
+      pinned = true;
+    }
+
+    synchronized boolean isUnused() {
+      return references == 0 && !pinned && !closed;
+    }
+
+    /** Marks the entry as closed unless somebody has leased or pinned it meanwhile. */
+    synchronized boolean markClosedIfUnused() {
+      if (references != 0 || pinned || closed) {
+        return false;
+      }
+      closed = true;
+      return true;
+    }
+
+    synchronized void markClosed() {
+      closed = true;
+    }
+
+    void close() {
+      URLClassLoader classLoader = loader.getNow(null);
+      if (classLoader == null) {
+        return;
+      }
+      try {
+        classLoader.close();
+      } catch (IOException e) {
+        throw ThrowingEx.asRuntime(e);
+      }
+    }
+  }
+
+  /**
+   * Keeps the classloader open until the lease is closed.
+   * Closing the lease more than once has no effect.
+   * The released classloader is evicted by the periodic sweep or by {@link #trim()}.
+   */
+  public static final class Lease implements AutoCloseable {
+    private final Entry entry;
+    private final ClassLoader classLoader;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    Lease(Entry entry, ClassLoader classLoader) {
+      this.entry = entry;
+      this.classLoader = classLoader;
+    }
+
+    public ClassLoader getClassLoader() {
+      return classLoader;
     }
 
     @Override
-    public final int hashCode() {
-      return hashCode;
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        entry.release();
+        // Scanning the cache on every release is wasteful, so the sweeper evicts the unused classloaders
+        instance.scheduleSweep();
+      }
     }
   }
 
-  final Map<SerializedKey, URLClassLoader> cache = new HashMap<>();
+  final ConcurrentMap<StateFingerprint, Entry> cache = new ConcurrentHashMap<>();
 
-  @SuppressFBWarnings("DP_CREATE_CLASSLOADER_INSIDE_DO_PRIVILEGED")
-  synchronized ClassLoader classloader(JarState state) {
+  private volatile int maxUnusedEntries = 16;
+  private volatile long idleTimeoutNanos = TimeUnit.MINUTES.toNanos(10);
+
+  /** Cleared by the garbage collector when the heap runs low, then all unused classloaders are closed. */
+  private volatile SoftReference<Object> memoryPressure = new SoftReference<>(new Object());
+
+  private final AtomicBoolean sweepScheduled = new AtomicBoolean();
+
+  ClassLoader classloader(JarState state) {
     return classloader(state, state);
   }
 
+  /**
+   * Returns a classloader without leasing it.
+   * The caller can't tell when the classloader is no longer used, so it is pinned:
+   * it is never evicted, and only {@link #clear()} closes it.
+   */
+  ClassLoader classloader(Serializable key, JarState state) {
+    try (Lease lease = lease(key, state)) {
+      lease.entry.pin();
+      return lease.getClassLoader();
+    }
+  }
+
+  Lease lease(Serializable key, JarState state) {
+    StateFingerprint fingerprint = StateFingerprint.of(Objects.requireNonNull(key));
+    while (true) {
+      Entry entry = cache.get(fingerprint);
+      if (entry == null) {
+        Entry created = new Entry(fingerprint, state.jarBytes());
+        entry = cache.putIfAbsent(fingerprint, created);
+        if (entry == null) {
+          return new Lease(created, load(created, state));
+        }
+      }
+      if (!entry.retain()) {
+        // the entry has just been evicted
+        cache.remove(fingerprint, entry);
+        continue;
+      }
+      try {
+        return new Lease(entry, entry.loader.join());
+      } catch (RuntimeException e) {
+        entry.release();
+        throw e;
+      }
+    }
+  }
+
   @SuppressFBWarnings("DP_CREATE_CLASSLOADER_INSIDE_DO_PRIVILEGED")
-  synchronized ClassLoader classloader(Serializable key, JarState state) {
-    SerializedKey serializedKey = new SerializedKey(key);
-    return cache
-        .computeIfAbsent(serializedKey, k -> new FeatureClassLoader(state.jarUrls(), this.getClass().getClassLoader()));
+  private URLClassLoader load(Entry entry, JarState state) {
+    try {
+      URLClassLoader classLoader = new FeatureClassLoader(state.jarUrls(), this.getClass().getClassLoader());
+      entry.loader.complete(classLoader);
+      return classLoader;
+    } catch (RuntimeException e) {
+      entry.markClosed();
+      cache.remove(entry.key, entry);
+      entry.loader.completeExceptionally(e);
+      throw e;
+    } finally {
+      evictUnused();
+    }
+  }
+
+  /**
+   * Closes the pooled formatters and the classloaders that have no leases and are either idle or exceed the limit.
+   * If the heap runs low, closes all the pooled formatters and the classloaders that have no leases.
+   */
+  void evictUnused() {
+    boolean lowMemory = memoryPressure.get() == null;
+    if (lowMemory) {
+      memoryPressure = new SoftReference<>(new Object());
+    }
+    // pooled formatters keep their classloaders leased, so they are closed first
+    FormatterFuncRegistry.evictIdle(lowMemory ? 0 : idleTimeoutNanos);
+    if (!FormatterFuncRegistry.isEmpty()) {
+      scheduleSweep();
+    }
+    List<Entry> unused = new ArrayList<>();
+    for (Entry entry : cache.values()) {
+      if (entry.isUnused()) {
+        unused.add(entry);
+      }
+    }
+    if (unused.isEmpty()) {
+      return;
+    }
+    scheduleSweep();
+    unused.sort(Comparator.comparingLong(Entry::lastUsedNanos));
+    long now = System.nanoTime();
+    int excess = unused.size() - maxUnusedEntries;
+    for (Entry entry : unused) {
+      boolean idle = now - entry.lastUsedNanos() > idleTimeoutNanos;
+      if ((excess > 0 || idle || lowMemory) && entry.markClosedIfUnused()) {
+        excess--;
+        cache.remove(entry.key, entry);
+        logger.log(Level.FINE, "Closing {0} classloader that holds {1} bytes of jars",
+            new Object[]{lowMemory ? "unused" : idle ? "idle" : "least recently used", entry.jarBytes});
+        entry.close();
+      }
+    }
+  }
+
+  /** Re-checks the unused classloaders periodically, so they are closed even if Autostyle is no longer used. */
+  private void scheduleSweep() {
+    if (!sweepScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    long delayNanos = Math.min(idleTimeoutNanos, TimeUnit.MINUTES.toNanos(1));
+    Sweeper.EXECUTOR.schedule(() -> {
+      sweepScheduled.set(false);
+      evictUnused();
+    }, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private static final class Sweeper {
+    static final ScheduledThreadPoolExecutor EXECUTOR;
+
+    static {
+      EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "autostyle-cache-sweeper");
+        thread.setDaemon(true);
+        return thread;
+      });
+      EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
   }
 
   static AutostyleCache instance() {
     return instance;
   }
 
-  /** Closes all cached classloaders. */
+  /**
+   * Configures when the classloaders that are not leased are closed.
+   *
+   * @param maxUnusedEntries the number of classloaders without leases to keep
+   * @param idleTimeout the time after which a classloader without leases is closed
+   */
+  public static void setLimits(int maxUnusedEntries, Duration idleTimeout) {
+    if (maxUnusedEntries < 0) {
+      throw new IllegalArgumentException("maxUnusedEntries must be non-negative, got " + maxUnusedEntries);
+    }
+    instance.maxUnusedEntries = maxUnusedEntries;
+    instance.idleTimeoutNanos = idleTimeout.toNanos();
+    instance.evictUnused();
+  }
+
+  /** Closes the classloaders that have no leases and are either idle or exceed the limit. */
+  public static void trim() {
+    instance.evictUnused();
+  }
+
+  /** Returns the number of cached classloaders. */
+  public static int size() {
+    return instance.cache.size();
+  }
+
+  /** Returns the total size of the jars that the cached classloaders hold. */
+  public static long heldJarBytes() {
+    long result = 0;
+    for (Entry entry : instance.cache.values()) {
+      result += entry.jarBytes;
+    }
+    return result;
+  }
+
+  /** Closes all pooled formatters and cached classloaders. */
   public static void clear() {
-    List<URLClassLoader> toDelete;
-    synchronized (instance) {
-      toDelete = new ArrayList<>(instance.cache.values());
-      instance.cache.clear();
+    FormatterFuncRegistry.clear();
+    List<Entry> toDelete = new ArrayList<>(instance.cache.values());
+    for (Entry entry : toDelete) {
+      entry.markClosed();
+      instance.cache.remove(entry.key, entry);
     }
-    for (URLClassLoader classLoader : toDelete) {
-      try {
-        classLoader.close();
-      } catch (IOException e) {
-        throw ThrowingEx.asRuntime(e);
-      }
+    for (Entry entry : toDelete) {
+      entry.close();
     }
   }
 
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Dynamic Class Data Sharing (AppCDS) archives for forked worker JVMs.
+ *
+ * The archive keeps the parsed and verified classes of the worker classpath, so the next JVM
+ * with the same classpath starts faster. The classes of custom classloaders are not archived,
+ * so the formatter classes loaded via {@link JarState} do not benefit from the archive.
+ */
+public final class ClassDataSharing {
+  private ClassDataSharing() {}
+
+  /** {@code -XX:+AutoCreateSharedArchive} is available since Java 19. */
+  private static final int MIN_JAVA_VERSION = 19;
+
+  /** Returns true if the current Java can create and reuse archives automatically. */
+  public static boolean isSupported() {
+    return Runtime.version().feature() >= MIN_JAVA_VERSION;
+  }
+
+  /**
+   * Returns JVM arguments that create the archive for the given classpath on the first run
+   * and reuse it afterwards, or an empty list if the current Java does not support that.
+   * The JVM recreates the archive if it does not match the JVM or the classpath.
+   * The id should change when the classpath changes, e.g. it could list the locations of the jars.
+   */
+  public static List<String> jvmArgs(File archiveDir, String classpathId) {
+    Objects.requireNonNull(archiveDir, "archiveDir");
+    Objects.requireNonNull(classpathId, "classpathId");
+    if (!isSupported()) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(
+        "-XX:+AutoCreateSharedArchive",
+        "-XX:SharedArchiveFile=" + new File(archiveDir, archiveName(classpathId)).getAbsolutePath());
+  }
+
+  static String archiveName(String classpathId) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(classpathId.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(hash) + "-java" + Runtime.version().feature() + ".jsa";
+    } catch (NoSuchAlgorithmException e) {
+      throw ThrowingEx.asRuntime(e);
+    }
+  }
+}
@@ -15,12 +15,19 @@
  */
 package com.github.autostyle;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Objects;
+import java.util.jar.Manifest;
 
 import javax.annotation.Nullable;
 
@@ -31,7 +38,9 @@ import javax.annotation.Nullable;
  * underlying build tool is e.g. skipped during the the search for classes.<br/>
  * Only {@link #BUILD_TOOLS_PACKAGES } are explicitly looked up from the class loader of
  * the build tool and the provided URLs are ignored. This allows the feature to use
- * distinct functionality of the build tool.
+ * distinct functionality of the build tool.<br/>
+ * The jars are indexed by directory once, so class and resource lookups check only the jars
+ * that contain the requested directory.
  */
 class FeatureClassLoader extends URLClassLoader {
   static {
@@ -49,6 +58,9 @@ class FeatureClassLoader extends URLClassLoader {
 
   private final ClassLoader buildToolClassLoader;
 
+  /** Routes the lookups to the jars that contain the requested directory. */
+  private final JarIndex index;
+
   /**
    * Constructs a new FeatureClassLoader for the given URLs, based on an {@code URLClassLoader},
    * using the system class loader as parent. For {@link #BUILD_TOOLS_PACKAGES }, the build
@@ -64,6 +76,7 @@ class FeatureClassLoader extends URLClassLoader {
     super(urls, getParentClassLoader());
     Objects.requireNonNull(buildToolClassLoader);
     this.buildToolClassLoader = buildToolClassLoader;
+    this.index = new JarIndex(urls);
   }
 
   @Override
@@ -73,7 +86,86 @@ class FeatureClassLoader extends URLClassLoader {
         return buildToolClassLoader.loadClass(name);
       }
     }
-    return super.findClass(name);
+    if (!index.isComplete()) {
+      // the jars that are not indexed might precede the indexed ones, so the classpath order is up to URLClassLoader
+      return super.findClass(name);
+    }
+    JarIndex.Located located = index.find(name.replace('.', '/') + ".class");
+    if (located == null) {
+      throw new ClassNotFoundException(name);
+    }
+    return defineClass(name, located);
+  }
+
+  private Class<?> defineClass(String name, JarIndex.Located located) throws ClassNotFoundException {
+    byte[] bytes;
+    try (InputStream is = located.jar.getInputStream(located.entry)) {
+      bytes = is.readAllBytes();
+    } catch (IOException e) {
+      throw new ClassNotFoundException(name, e);
+    }
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      definePackage(name.substring(0, dot), located);
+    }
+    // code signers are available only after the entry has been read
+    CodeSource codeSource = new CodeSource(located.jarUrl, located.entry.getCodeSigners());
+    return defineClass(name, bytes, 0, bytes.length, codeSource);
+  }
+
+  private void definePackage(String packageName, JarIndex.Located located) throws ClassNotFoundException {
+    if (getDefinedPackage(packageName) != null) {
+      return;
+    }
+    try {
+      Manifest manifest = located.jar.getManifest();
+      if (manifest != null) {
+        definePackage(packageName, manifest, located.jarUrl);
+      } else {
+        definePackage(packageName, null, null, null, null, null, null, null);
+      }
+    } catch (IllegalArgumentException e) {
+      // the package has been defined concurrently
+    } catch (IOException e) {
+      throw new ClassNotFoundException(packageName, e);
+    }
+  }
+
+  @Override
+  public @Nullable URL findResource(String name) {
+    if (!index.isComplete()) {
+      return super.findResource(name);
+    }
+    JarIndex.Located located = index.find(name);
+    if (located == null) {
+      return null;
+    }
+    try {
+      return located.toUrl();
+    } catch (MalformedURLException e) {
+      throw ThrowingEx.asRuntime(e);
+    }
+  }
+
+  @Override
+  public Enumeration<URL> findResources(String name) throws IOException {
+    if (!index.isComplete()) {
+      return super.findResources(name);
+    }
+    List<URL> result = new ArrayList<>();
+    for (JarIndex.Located located : index.findAll(name)) {
+      result.add(located.toUrl());
+    }
+    return Collections.enumeration(result);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      index.close();
+    }
   }
 
   /**
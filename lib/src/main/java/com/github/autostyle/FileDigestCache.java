@@ -0,0 +1,264 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * Process-wide memo of file content digests keyed by canonical path, size and last modification time,
+ * so the same jars are not read again for every step of every project.
+ *
+ * The memo can be persisted with {@link #save(File)} and {@link #load(File)}.
+ * The file configured with {@link #setStore(File)} is loaded on the first use,
+ * so the digests are available before the first step is fingerprinted.
+ */
+public final class FileDigestCache {
+  private FileDigestCache() {}
+
+  private static final String ALGORITHM = "SHA-1";
+  private static final int FORMAT_VERSION = 2;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Files modified that recently might be modified again within the timestamp granularity
+   * without changing their size, so their digests are not memoized.
+   */
+  private static final long RACY_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+  /** The number of the most recently used entries that are kept when the memo is saved. */
+  static final int MAX_ENTRIES = 10_000;
+
+  /** The entries that were not used for that long are dropped when the memo is saved. */
+  private static final long MAX_UNUSED_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+  private static final class Entry {
+    final long size;
+    final long lastModified;
+    final byte[] digest;
+    volatile long lastUsed;
+
+    Entry(long size, long lastModified, byte[] digest, long lastUsed) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.digest = digest;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  private static final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /** The files that have already been loaded, so a long-living process loads them once. */
+  private static final Set<String> loaded = ConcurrentHashMap.newKeySet();
+
+  @Nullable
+  private static volatile File store;
+
+  /**
+   * Configures the file that is {@link #load(File) loaded} on the first use of the memo.
+   * The file is not saved automatically, see {@link #save(File)}.
+   */
+  public static void setStore(@Nullable File file) {
+    store = file;
+  }
+
+  /** Returns the digests of the file contents, the files that are not memoized are read in parallel. */
+  static List<byte[]> digestAll(List<File> files) throws IOException {
+    File storeFile = store;
+    if (storeFile != null) {
+      load(storeFile);
+    }
+    long now = System.currentTimeMillis();
+    byte[][] result = new byte[files.size()][];
+    String[] paths = new String[files.size()];
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < result.length; i++) {
+      File file = files.get(i);
+      paths[i] = file.getCanonicalPath();
+      BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+      Entry entry = entries.get(paths[i]);
+      if (entry != null && entry.size == attrs.size() && entry.lastModified == attrs.lastModifiedTime().toMillis()) {
+        result[i] = entry.digest;
+        entry.lastUsed = now;
+      } else {
+        missing.add(i);
+      }
+    }
+    try {
+      IntStream indices = missing.stream().mapToInt(Integer::intValue);
+      if (missing.size() > 1) {
+        indices = indices.parallel();
+      }
+      indices.forEach(i -> {
+        try {
+          result[i] = compute(files.get(i), paths[i]);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return List.of(result);
+  }
+
+  private static byte[] compute(File file, String path) throws IOException {
+    // the attributes are read before the contents, so a concurrent modification invalidates the entry
+    BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    MessageDigest md = newDigest();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        md.update(buffer);
+        buffer.clear();
+      }
+    }
+    byte[] digest = md.digest();
+    long lastModified = attrs.lastModifiedTime().toMillis();
+    long now = System.currentTimeMillis();
+    if (now - lastModified > RACY_MILLIS) {
+      entries.put(path, new Entry(attrs.size(), lastModified, digest, now));
+    }
+    return digest;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw ThrowingEx.asRuntime(e);
+    }
+  }
+
+  /**
+   * Adds the digests stored by {@link #save(File)}, ignoring the file if it is missing or unreadable.
+   * The file is loaded only once per process.
+   */
+  public static void load(File file) {
+    Objects.requireNonNull(file, "file");
+    if (!loaded.add(file.getAbsolutePath()) || !file.isFile()) {
+      return;
+    }
+    try (InputStream is = Files.newInputStream(file.toPath());
+         DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+      if (in.readInt() != FORMAT_VERSION || !ALGORITHM.equals(in.readUTF())) {
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        long lastUsed = in.readLong();
+        byte[] digest = new byte[in.readUnsignedByte()];
+        in.readFully(digest);
+        entries.putIfAbsent(path, new Entry(size, lastModified, digest, lastUsed));
+      }
+    } catch (IOException e) {
+      // the memo is just a cache, so the digests are computed again
+    }
+  }
+
+  /**
+   * Stores the memoized digests, so the next process can {@link #load(File)} them.
+   * The entries for the deleted files, the entries that were not used recently, and the least recently used
+   * entries above {@link #MAX_ENTRIES} are dropped, so neither the memo nor the file grows without bounds.
+   */
+  public static void save(File file) throws IOException {
+    Objects.requireNonNull(file, "file");
+    List<Map.Entry<String, Entry>> snapshot = prune();
+    Path target = file.toPath();
+    Files.createDirectories(target.toAbsolutePath().getParent());
+    Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(ALGORITHM);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Entry> e : snapshot) {
+          Entry entry = e.getValue();
+          out.writeUTF(e.getKey());
+          out.writeLong(entry.size);
+          out.writeLong(entry.lastModified);
+          out.writeLong(entry.lastUsed);
+          out.writeByte(entry.digest.length);
+          out.write(entry.digest);
+        }
+      }
+      // concurrent processes might save the memo at the same time, so the file is replaced atomically
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private static List<Map.Entry<String, Entry>> prune() {
+    long unusedSince = System.currentTimeMillis() - MAX_UNUSED_MILLIS;
+    List<Map.Entry<String, Entry>> kept = new ArrayList<>();
+    for (Map.Entry<String, Entry> e : entries.entrySet()) {
+      if (e.getValue().lastUsed < unusedSince || !new File(e.getKey()).isFile()) {
+        entries.remove(e.getKey(), e.getValue());
+      } else {
+        kept.add(e);
+      }
+    }
+    if (kept.size() > MAX_ENTRIES) {
+      kept.sort(Comparator.comparingLong((Map.Entry<String, Entry> e) -> e.getValue().lastUsed).reversed());
+      for (Map.Entry<String, Entry> e : kept.subList(MAX_ENTRIES, kept.size())) {
+        entries.remove(e.getKey(), e.getValue());
+      }
+      kept = kept.subList(0, MAX_ENTRIES);
+    }
+    return kept;
+  }
+
+  static int size() {
+    return entries.size();
+  }
+
+    /** Forgets all the memoized digests. */
+  public static void clear() {
+    entries.clear();
+  }
+}
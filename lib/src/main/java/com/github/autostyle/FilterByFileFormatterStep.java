@@ -21,8 +21,8 @@ import java.util.Objects;
 import javax.annotation.Nullable;
 
 final class FilterByFileFormatterStep implements FormatterStep {
-  private final FormatterStep delegateStep;
-  private final SerializableFileFilter filter;
+  final FormatterStep delegateStep;
+  final SerializableFileFilter filter;
 
   FilterByFileFormatterStep(FormatterStep delegateStep, SerializableFileFilter filter) {
     this.delegateStep = Objects.requireNonNull(delegateStep);
@@ -45,6 +45,11 @@ final class FilterByFileFormatterStep implements FormatterStep {
     }
   }
 
+  @Override
+  public boolean isPortable() {
+    return delegateStep.isPortable();
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -19,6 +19,7 @@ import static com.github.autostyle.LibPreconditions.requireElementsNonNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
@@ -27,10 +28,14 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Nullable;
 
@@ -42,12 +47,18 @@ public final class Formatter implements Serializable, AutoCloseable {
   private Charset encoding;
   private Path rootDir;
   private List<FormatterStep> steps;
+  private SkipPolicy skipPolicy;
+  /** Not a part of the state since it does not affect the formatting result. */
+  private transient long stepTimeoutMillis;
+  private transient EnumMap<SkipPolicy.Reason, LongAdder> skippedFiles = newSkipCounters();
 
-  private Formatter(LineEnding.Policy lineEndingsPolicy, Charset encoding, Path rootDirectory, List<FormatterStep> steps) {
+  private Formatter(LineEnding.Policy lineEndingsPolicy, Charset encoding, Path rootDirectory, List<FormatterStep> steps, SkipPolicy skipPolicy, @Nullable Duration stepTimeout) {
     this.lineEndingsPolicy = Objects.requireNonNull(lineEndingsPolicy, "lineEndingsPolicy");
     this.encoding = Objects.requireNonNull(encoding, "encoding");
     this.rootDir = Objects.requireNonNull(rootDirectory, "rootDir");
     this.steps = requireElementsNonNull(new ArrayList<>(steps));
+    this.skipPolicy = Objects.requireNonNull(skipPolicy, "skipPolicy");
+    this.stepTimeoutMillis = stepTimeout == null ? 0 : stepTimeout.toMillis();
   }
 
   // override serialize output
@@ -56,6 +67,7 @@ public final class Formatter implements Serializable, AutoCloseable {
     out.writeObject(encoding.name());
     out.writeObject(rootDir.toString());
     out.writeObject(steps);
+    out.writeObject(skipPolicy);
   }
 
   // override serialize input
@@ -65,6 +77,16 @@ public final class Formatter implements Serializable, AutoCloseable {
     encoding = Charset.forName((String) in.readObject());
     rootDir = Paths.get((String) in.readObject());
     steps = (List<FormatterStep>) in.readObject();
+    skipPolicy = (SkipPolicy) in.readObject();
+    skippedFiles = newSkipCounters();
+  }
+
+  private static EnumMap<SkipPolicy.Reason, LongAdder> newSkipCounters() {
+    EnumMap<SkipPolicy.Reason, LongAdder> counters = new EnumMap<>(SkipPolicy.Reason.class);
+    for (SkipPolicy.Reason reason : SkipPolicy.Reason.values()) {
+      counters.put(reason, new LongAdder());
+    }
+    return counters;
   }
 
   // override serialize input
@@ -89,6 +111,27 @@ public final class Formatter implements Serializable, AutoCloseable {
     return steps;
   }
 
+  public SkipPolicy getSkipPolicy() {
+    return skipPolicy;
+  }
+
+  /** Returns the number of files skipped so far by {@link SkipPolicy}, grouped by the reason. */
+  public Map<SkipPolicy.Reason, Long> getSkippedFiles() {
+    Map<SkipPolicy.Reason, Long> result = new EnumMap<>(SkipPolicy.Reason.class);
+    for (Map.Entry<SkipPolicy.Reason, LongAdder> entry : skippedFiles.entrySet()) {
+      long count = entry.getValue().sum();
+      if (count > 0) {
+        result.put(entry.getKey(), count);
+      }
+    }
+    return result;
+  }
+
+  /** Returns the time budget for a single step on a single file, or null if there's no limit. */
+  public @Nullable Duration getStepTimeout() {
+    return stepTimeoutMillis > 0 ? Duration.ofMillis(stepTimeoutMillis) : null;
+  }
+
   public static Formatter.Builder builder() {
     return new Formatter.Builder();
   }
@@ -99,6 +142,9 @@ public final class Formatter implements Serializable, AutoCloseable {
     private Charset encoding;
     private Path rootDir;
     private List<FormatterStep> steps;
+    // optional parameters
+    private SkipPolicy skipPolicy = SkipPolicy.NONE;
+    private @Nullable Duration stepTimeout;
 
     private Builder() {}
 
@@ -122,8 +168,24 @@ public final class Formatter implements Serializable, AutoCloseable {
       return this;
     }
 
+    /** Configures the files which are skipped before any step runs. Nothing is skipped by default. */
+    public Builder skipPolicy(SkipPolicy skipPolicy) {
+      this.skipPolicy = skipPolicy;
+      return this;
+    }
+
+    /**
+     * Limits the time a single step can spend on a single file.
+     * When the budget is exceeded, formatting fails with {@link FormatterException}.
+     * Null or non-positive duration means no limit.
+     */
+    public Builder stepTimeout(@Nullable Duration stepTimeout) {
+      this.stepTimeout = stepTimeout;
+      return this;
+    }
+
     public Formatter build() {
-      return new Formatter(lineEndingsPolicy, encoding, rootDir, steps);
+      return new Formatter(lineEndingsPolicy, encoding, rootDir, steps, skipPolicy, stepTimeout);
     }
   }
 
@@ -131,7 +193,11 @@ public final class Formatter implements Serializable, AutoCloseable {
   public boolean isClean(File file) throws IOException {
     Objects.requireNonNull(file);
 
-    String raw = new String(Files.readAllBytes(file.toPath()), encoding);
+    byte[] rawBytes = readUnlessSkipped(file);
+    if (rawBytes == null) {
+      return true;
+    }
+    String raw = new String(rawBytes, encoding);
     String unix = LineEnding.toUnix(raw);
 
     // check the newlines (we can find these problems without even running the steps)
@@ -163,7 +229,10 @@ public final class Formatter implements Serializable, AutoCloseable {
   public @Nullable String formatOrNull(File file) throws IOException {
     Objects.requireNonNull(file);
 
-    byte[] rawBytes = Files.readAllBytes(file.toPath());
+    byte[] rawBytes = readUnlessSkipped(file);
+    if (rawBytes == null) {
+      return null;
+    }
     String raw = new String(rawBytes, encoding);
     String rawUnix = LineEnding.toUnix(raw);
 
@@ -172,11 +241,49 @@ public final class Formatter implements Serializable, AutoCloseable {
     // enforce the line endings
     String formatted = computeLineEndings(formattedUnix, file);
 
+    // the steps and the line endings kept the very same instance, so nothing has changed
+    if (formatted == raw) {
+      return null;
+    }
+
     // write out the file iff it has changed
     byte[] formattedBytes = formatted.getBytes(encoding);
     return Arrays.equals(rawBytes, formattedBytes) ? null : formattedUnix;
   }
 
+  /**
+   * Returns the contents of the file, or null if {@link SkipPolicy} tells the file should be skipped.
+   * Skipped files are treated as already formatted.
+   */
+  private @Nullable byte[] readUnlessSkipped(File file) throws IOException {
+    Path path = file.toPath();
+    if (!skipPolicy.isEnabled()) {
+      return Files.readAllBytes(path);
+    }
+    // the size is checked before reading, so huge files are never loaded into memory
+    SkipPolicy.Reason reason = skipPolicy.checkSize(Files.size(path));
+    if (reason != null) {
+      skippedFiles.get(reason).increment();
+      return null;
+    }
+    try (InputStream in = Files.newInputStream(path)) {
+      // one extra byte tells whether the sniffed prefix is the whole file
+      byte[] prefix = in.readNBytes(SkipPolicy.SNIFF_LENGTH + 1);
+      reason = skipPolicy.checkContent(prefix, encoding);
+      if (reason != null) {
+        skippedFiles.get(reason).increment();
+        return null;
+      }
+      if (prefix.length <= SkipPolicy.SNIFF_LENGTH) {
+        return prefix;
+      }
+      byte[] rest = in.readAllBytes();
+      byte[] bytes = Arrays.copyOf(prefix, prefix.length + rest.length);
+      System.arraycopy(rest, 0, bytes, prefix.length, rest.length);
+      return bytes;
+    }
+  }
+
   /** Applies the appropriate line endings to the given unix content. */
   public String computeLineEndings(String unix, File file) {
     Objects.requireNonNull(unix, "unix");
@@ -200,19 +307,28 @@ public final class Formatter implements Serializable, AutoCloseable {
     Objects.requireNonNull(file, "file");
 
     for (FormatterStep step : steps) {
+      StepBudget budget = StepBudget.start(step.getName(), stepTimeoutMillis);
       try {
         String formatted = step.format(unix, file);
-        if (formatted == null) {
+        budget.verify();
+        if (formatted == null || formatted == unix) {
           // This probably means it was a step that only checks
-          // for errors and doesn't actually have any fixes.
+          // for errors and doesn't actually have any fixes,
+          // or the step returned its input as is, so there is nothing to normalize.
           // No exception was thrown so we can just continue.
         } else {
           // Should already be unix-only, but some steps might misbehave.
           unix = LineEnding.toUnix(formatted);
         }
       } catch (Throwable e) {
+        if (budget.isExceeded()) {
+          discardFormatter(step, e);
+        }
         String relativePath = rootDir.relativize(file.toPath()).toString();
-        throw new FormatterException(step.getName(), relativePath, file, e);
+        throw new FormatterException(step.getName(), relativePath, file, budget.explain(e));
+      } finally {
+        // clears the interrupt of the budget watchdog, so it does not leak to the next step or file
+        budget.close();
       }
     }
     return unix;
@@ -226,6 +342,7 @@ public final class Formatter implements Serializable, AutoCloseable {
     result = prime * result + lineEndingsPolicy.hashCode();
     result = prime * result + rootDir.hashCode();
     result = prime * result + steps.hashCode();
+    result = prime * result + skipPolicy.hashCode();
     return result;
   }
 
@@ -244,7 +361,20 @@ public final class Formatter implements Serializable, AutoCloseable {
     return encoding.equals(other.encoding) &&
         lineEndingsPolicy.equals(other.lineEndingsPolicy) &&
         rootDir.equals(other.rootDir) &&
-        steps.equals(other.steps);
+        steps.equals(other.steps) &&
+        skipPolicy.equals(other.skipPolicy);
+  }
+
+  /** The step might have been interrupted in the middle of a file, so its formatter is not reused. */
+  @SuppressWarnings("rawtypes")
+  private static void discardFormatter(FormatterStep step, Throwable failure) {
+    if (step instanceof FormatterStepImpl.Standard) {
+      try {
+        ((FormatterStepImpl.Standard) step).discardFormatterFunc();
+      } catch (Throwable e) {
+        failure.addSuppressed(e);
+      }
+    }
   }
 
   @SuppressWarnings("rawtypes")
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Pools {@link FormatterFunc} instances of equal steps, so the steps of different projects and tasks,
+ * and deserialized copies of a step, reuse the formatters instead of creating them again.
+ *
+ * A formatter is used by a single thread at a time: {@link #acquire} hands out an idle formatter
+ * or creates a new one, and {@link #release} returns it to the pool.
+ * The idle formatters are closed by {@link AutostyleCache} when they stay idle for too long.
+ */
+final class FormatterFuncRegistry {
+  private FormatterFuncRegistry() {}
+
+  /** Formatters beyond that number are closed on release. */
+  private static final int MAX_IDLE_PER_STEP = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The pool key includes the class of the function that creates the formatter, since
+   * the same state might produce different formatters.
+   */
+  static final class Key {
+    final StateFingerprint state;
+    final Class<?> factory;
+
+    Key(StateFingerprint state, Class<?> factory) {
+      this.state = state;
+      this.factory = factory;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return factory == key.factory && state.equals(key.state);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(state, factory);
+    }
+  }
+
+  private static final class Idle {
+    final FormatterFunc formatter;
+    final long sinceNanos = System.nanoTime();
+
+    Idle(FormatterFunc formatter) {
+      this.formatter = formatter;
+    }
+  }
+
+  /**
+   * The formatter of a capturing lambda depends on the captured values, and they are not a part of the state,
+   * so only the factories without instance fields can be shared.
+   */
+  private static final ClassValue<Boolean> SHAREABLE_FACTORY = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+  };
+
+  private static final ConcurrentMap<Key, Deque<Idle>> pools = new ConcurrentHashMap<>();
+
+  /** Returns the key of the pool, or null if the formatters of the step can't be shared. */
+  static @Nullable Key keyOf(LazyForwardingEquality<?> step, Object factory) {
+    if (!SHAREABLE_FACTORY.get(factory.getClass())) {
+      return null;
+    }
+    return new Key(step.fingerprint(), factory.getClass());
+  }
+
+  /** Returns an idle formatter from the pool, or creates a new one. */
+  static FormatterFunc acquire(@Nullable Key key, ThrowingEx.Supplier<FormatterFunc> factory) {
+    if (key != null) {
+      Deque<Idle> pool = pools.get(key);
+      if (pool != null) {
+        Idle idle;
+        synchronized (pool) {
+          idle = pool.pollFirst();
+        }
+        if (idle != null) {
+          return idle.formatter;
+        }
+      }
+    }
+    return ThrowingEx.get(factory);
+  }
+
+  /** Returns the formatter to the pool, or closes it if it can't be pooled. */
+  static void release(@Nullable Key key, FormatterFunc formatter) {
+    if (key != null) {
+      Deque<Idle> pool = pools.computeIfAbsent(key, k -> new ArrayDeque<>());
+      synchronized (pool) {
+        if (pool.size() < MAX_IDLE_PER_STEP) {
+          // the most recently used formatter is reused first, so the extra ones become idle
+          pool.addFirst(new Idle(formatter));
+          return;
+        }
+      }
+    }
+    close(formatter);
+  }
+
+  /** Closes the formatters that stay idle for longer than the given time. */
+  static void evictIdle(long idleTimeoutNanos) {
+    long now = System.nanoTime();
+    List<FormatterFunc> toClose = new ArrayList<>();
+    for (Deque<Idle> pool : pools.values()) {
+      synchronized (pool) {
+        for (Iterator<Idle> it = pool.descendingIterator(); it.hasNext(); ) {
+          Idle idle = it.next();
+          if (now - idle.sinceNanos < idleTimeoutNanos) {
+            break;
+          }
+          it.remove();
+          toClose.add(idle.formatter);
+        }
+      }
+    }
+    toClose.forEach(FormatterFuncRegistry::close);
+  }
+
+  static boolean isEmpty() {
+    for (Deque<Idle> pool : pools.values()) {
+      synchronized (pool) {
+        if (!pool.isEmpty()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Closes all idle formatters. */
+  static void clear() {
+    evictIdle(0);
+  }
+
+  /** Closes the formatter if it holds resources. */
+  static void close(FormatterFunc formatter) {
+    if (formatter instanceof FormatterFunc.Closeable) {
+      ((FormatterFunc.Closeable) formatter).close();
+    }
+  }
+}
@@ -45,6 +45,15 @@ public interface FormatterStep extends Serializable {
    */
   @Nullable String format(String rawUnix, File file) throws Throwable;
 
+  /**
+   * Returns true if a serialized copy of the step can format files, so the files can be
+   * formatted in a different classloader or JVM.
+   * By default, the serialized form identifies the state of the step only.
+   */
+  default boolean isPortable() {
+    return false;
+  }
+
   /**
    * Returns a new FormatterStep which will only apply its changes
    * to files which pass the given filter.
@@ -86,7 +95,7 @@ public interface FormatterStep extends Serializable {
    * @param stateToFormatter
    *             A pure function which generates a formatting function using
    *             only the state supplied by state and nowhere else.
-   * @return A FormatterStep
+   * @return A FormatterStep, which is not {@link #isPortable() portable}
    */
   static <State extends Serializable> FormatterStep createLazy(
       String name,
@@ -95,6 +104,24 @@ public interface FormatterStep extends Serializable {
     return new FormatterStepImpl.Standard<>(name, stateSupplier, stateToFormatter);
   }
 
+  /**
+   * @param name
+   *             The name of the formatter step
+   * @param stateSupplier
+   *             If the rule has any state, this supplier will calculate it lazily, and the result
+   *             will be passed to stateToFormatter
+   * @param stateToFormatter
+   *             A pure function which generates a formatting function using
+   *             only the state supplied by state and nowhere else.
+   * @return A FormatterStep, which is {@link #isPortable() portable} if the function captures serializable values only
+   */
+  static <State extends Serializable> FormatterStep createLazy(
+      String name,
+      ThrowingEx.Supplier<State> stateSupplier,
+      ThrowingEx.SerializableFunction<State, FormatterFunc> stateToFormatter) {
+    return new FormatterStepImpl.Standard<>(name, stateSupplier, stateToFormatter);
+  }
+
   /**
    * @param name
    *             The name of the formatter step
@@ -103,7 +130,7 @@ public interface FormatterStep extends Serializable {
    * @param stateToFormatter
    *             A pure function which generates a formatting function using
    *             only the state supplied by state and nowhere else.
-   * @return A FormatterStep
+   * @return A FormatterStep, which is not {@link #isPortable() portable}
    */
   static <State extends Serializable> FormatterStep create(
       String name,
@@ -113,6 +140,24 @@ public interface FormatterStep extends Serializable {
     return createLazy(name, () -> state, stateToFormatter);
   }
 
+  /**
+   * @param name
+   *             The name of the formatter step
+   * @param state
+   *             If the rule has any state, this state must contain all of it
+   * @param stateToFormatter
+   *             A pure function which generates a formatting function using
+   *             only the state supplied by state and nowhere else.
+   * @return A FormatterStep, which is {@link #isPortable() portable} if the function captures serializable values only
+   */
+  static <State extends Serializable> FormatterStep create(
+      String name,
+      State state,
+      ThrowingEx.SerializableFunction<State, FormatterFunc> stateToFormatter) {
+    Objects.requireNonNull(state, "state");
+    return createLazy(name, () -> state, stateToFormatter);
+  }
+
   /**
    * @param name
    *             The name of the formatter step
@@ -19,10 +19,16 @@ import com.github.autostyle.FormatterStep.Strict;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Objects;
 import java.util.Random;
 
+import javax.annotation.Nullable;
+
 /**
  * Standard implementation of FormatExtension which cleanly enforces
  * separation of serializable configuration and a pure format function.
@@ -34,8 +40,8 @@ import java.util.Random;
 abstract class FormatterStepImpl<State extends Serializable> extends Strict<State> {
   private static final long serialVersionUID = 1L;
 
-  /** Transient because only the state matters. */
-  final transient String name;
+  /** Serialized, so a {@link #isPortable() portable} copy keeps the name. */
+  final String name;
 
   /** Transient because only the state matters. */
   final transient ThrowingEx.Supplier<State> stateSupplier;
@@ -58,8 +64,13 @@ abstract class FormatterStepImpl<State extends Serializable> extends Strict<Stat
   static final class Standard<State extends Serializable> extends FormatterStepImpl<State> {
     private static final long serialVersionUID = 1L;
 
-    final transient ThrowingEx.Function<State, FormatterFunc> stateToFormatter;
+    /** Serialized only if the step is portable, see {@link #writeObject(ObjectOutputStream)}. */
+    transient ThrowingEx.Function<State, FormatterFunc> stateToFormatter;
+    @Nullable
+    transient Boolean portable;
     transient FormatterFunc formatter; // initialized lazily
+    @Nullable
+    transient FormatterFuncRegistry.Key formatterKey;
 
     Standard(String name, ThrowingEx.Supplier<State> stateSupplier, ThrowingEx.Function<State, FormatterFunc> stateToFormatter) {
       super(name, stateSupplier);
@@ -72,14 +83,85 @@ abstract class FormatterStepImpl<State extends Serializable> extends Strict<Stat
       Objects.requireNonNull(rawUnix, "rawUnix");
       Objects.requireNonNull(file, "file");
       if (formatter == null) {
-        formatter = stateToFormatter.apply(state());
+        if (stateToFormatter == null) {
+          throw new IllegalStateException("Step " + name + " is not portable, so its deserialized copy can't format files");
+        }
+        formatterKey = FormatterFuncRegistry.keyOf(this, stateToFormatter);
+        formatter = FormatterFuncRegistry.acquire(formatterKey, () -> stateToFormatter.apply(state()));
       }
       return formatter.apply(rawUnix, file);
     }
 
+    /**
+     * The factory might capture values that can't be serialized (e.g. a Groovy closure),
+     * so the step is portable only if the factory survives serialization.
+     */
+    @Override
+    public boolean isPortable() {
+      Boolean result = portable;
+      if (result == null) {
+        result = stateToFormatter instanceof Serializable && canSerialize((Serializable) stateToFormatter);
+        portable = result;
+      }
+      return result;
+    }
+
+    private static boolean canSerialize(Serializable value) {
+      try (ObjectOutputStream out = new ObjectOutputStream(OutputStream.nullOutputStream())) {
+        out.writeObject(value);
+        return true;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      out.writeObject(isPortable() ? stateToFormatter : null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      stateToFormatter = (ThrowingEx.Function<State, FormatterFunc>) in.readObject();
+    }
+
+    /**
+     * Creates a formatter and returns it to {@link FormatterFuncRegistry}, so the subsequent
+     * uses of equal steps do not need to create it.
+     * Does nothing if the formatters of the step can't be shared.
+     */
+    void warmUp(@Nullable String sample, File sampleFile) throws Throwable {
+      FormatterFuncRegistry.Key key = FormatterFuncRegistry.keyOf(this, stateToFormatter);
+      if (key == null) {
+        return;
+      }
+      FormatterFunc warm = FormatterFuncRegistry.acquire(key, () -> stateToFormatter.apply(state()));
+      try {
+        if (sample != null) {
+          warm.apply(sample, sampleFile);
+        }
+      } finally {
+        FormatterFuncRegistry.release(key, warm);
+      }
+    }
+
+    /** Returns the formatter to {@link FormatterFuncRegistry}, so the equal steps can reuse it. */
     void cleanupFormatterFunc() {
-      if (formatter instanceof FormatterFunc.Closeable) {
-        ((FormatterFunc.Closeable) formatter).close();
+      if (formatter != null) {
+        FormatterFuncRegistry.release(formatterKey, formatter);
+        formatter = null;
+      }
+    }
+
+    /**
+     * Closes the formatter instead of returning it to {@link FormatterFuncRegistry}.
+     * A formatter that was interrupted in the middle of a file might be left in an inconsistent state,
+     * so the next file gets a fresh one.
+     */
+    void discardFormatterFunc() {
+      if (formatter != null) {
+        FormatterFunc discarded = formatter;
+        formatter = null;
+        FormatterFuncRegistry.close(discarded);
       }
     }
   }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates the formatters of the steps in background, so the first file of a task
+ * does not pay for the formatter initialization.
+ *
+ * The warmed-up formatters are returned to {@link FormatterFuncRegistry},
+ * and the steps pick them up when they format the first file.
+ */
+public final class FormatterWarmUp {
+  private FormatterWarmUp() {}
+
+  private static final Logger logger = Logger.getLogger(FormatterWarmUp.class.getName());
+
+  /** A tiny input that most formatters accept, so the sample run exercises the formatting code. */
+  private static final String SAMPLE = "\n";
+  private static final File SAMPLE_FILE = new File("autostyle-warm-up");
+
+  private static final class Executor {
+    static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+        r -> {
+          Thread thread = new Thread(r, "autostyle-warm-up");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Starts creating the formatters of the given steps.
+   *
+   * The step states are computed in the calling thread, since they might need to resolve dependencies,
+   * and the build tool might not allow that in the other threads.
+   * Warm-up failures are ignored: the actual formatting reports them.
+   *
+   * @param steps the steps to warm up
+   * @param runSample whether the formatters should format a tiny sample as well
+   * @return the future that completes when all the formatters are created
+   */
+  public static CompletableFuture<Void> start(Collection<? extends FormatterStep> steps, boolean runSample) {
+    Set<FormatterStepImpl.Standard<?>> distinct = new LinkedHashSet<>();
+    for (FormatterStep step : steps) {
+      while (step instanceof FilterByFileFormatterStep) {
+        step = ((FilterByFileFormatterStep) step).delegateStep;
+      }
+      if (step instanceof FormatterStepImpl.Standard) {
+        FormatterStepImpl.Standard<?> standard = (FormatterStepImpl.Standard<?>) step;
+        try {
+          standard.state();
+          distinct.add(standard);
+        } catch (RuntimeException e) {
+          logger.log(Level.FINE, "Unable to warm up " + step.getName(), e);
+        }
+      }
+    }
+    return CompletableFuture.allOf(distinct.stream()
+        .map(step -> CompletableFuture.runAsync(() -> warmUp(step, runSample), Executor.INSTANCE))
+        .toArray(CompletableFuture[]::new));
+  }
+
+  private static void warmUp(FormatterStepImpl.Standard<?> step, boolean runSample) {
+    try {
+      step.warmUp(runSample ? SAMPLE : null, SAMPLE_FILE);
+    } catch (Throwable e) {
+      logger.log(Level.FINE, "Unable to warm up " + step.getName(), e);
+    }
+  }
+}
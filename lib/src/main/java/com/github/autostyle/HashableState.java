@@ -0,0 +1,32 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.Serializable;
+
+/**
+ * State whose identity is defined by the values it feeds into a {@link StateHasher}
+ * rather than by its Java-serialized form.
+ *
+ * The serialized form depends on the JVM version and on the class layout, so it is a poor fit
+ * for build cache keys. The hash depends only on the values that affect the formatting result.
+ * Implementations must feed every such value, otherwise different states would be treated as equal.
+ * The hash affects equality only: {@link NoLambda#toBytes()} still returns the Java-serialized form.
+ */
+public interface HashableState extends Serializable {
+  /** Feeds the identity of this state into the hasher. */
+  void hashTo(StateHasher hasher);
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
+
+/**
+ * Maps directories to the jars that contain them, so class and resource lookups
+ * check only the relevant jars instead of every jar on the classpath.
+ */
+final class JarIndex implements Closeable {
+  private static final String VERSIONS_PREFIX = "META-INF/versions/";
+
+  /** An entry of an indexed jar. */
+  static final class Located {
+    final JarFile jar;
+    final URL jarUrl;
+    final JarEntry entry;
+
+    Located(JarFile jar, URL jarUrl, JarEntry entry) {
+      this.jar = jar;
+      this.jarUrl = jarUrl;
+      this.entry = entry;
+    }
+
+    /**
+     * Returns the same URL as {@link java.net.URLClassLoader} does: multi-release jars
+     * point to the versioned entry, so the URL resolves to the same content as the entry.
+     */
+    URL toUrl() throws MalformedURLException {
+      String name = jar.isMultiRelease() ? entry.getRealName() : entry.getName();
+      try {
+        return new URL("jar:" + jarUrl.toExternalForm() + "!/" + new URI(null, null, name, null).getRawPath());
+      } catch (URISyntaxException e) {
+        MalformedURLException failure = new MalformedURLException(name);
+        failure.initCause(e);
+        throw failure;
+      }
+    }
+  }
+
+  private final List<JarFile> jars = new ArrayList<>();
+  private final List<URL> jarUrls = new ArrayList<>();
+  /** Directory name (without the trailing slash) to the indices of the jars that contain it. */
+  private final Map<String, int[]> directories = new HashMap<>();
+  private final boolean complete;
+
+  JarIndex(URL[] urls) {
+    Map<String, List<Integer>> index = new HashMap<>();
+    boolean allIndexed = true;
+    for (URL url : urls) {
+      JarFile jar = open(url);
+      if (jar == null) {
+        allIndexed = false;
+        continue;
+      }
+      int jarIndex = jars.size();
+      jars.add(jar);
+      jarUrls.add(url);
+      for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+        JarEntry entry = entries.nextElement();
+        if (entry.isDirectory()) {
+          continue;
+        }
+        List<Integer> jarsWithDirectory = index.computeIfAbsent(directoryOf(baseName(entry.getName())), k -> new ArrayList<>(1));
+        if (jarsWithDirectory.isEmpty() || jarsWithDirectory.get(jarsWithDirectory.size() - 1) != jarIndex) {
+          jarsWithDirectory.add(jarIndex);
+        }
+      }
+    }
+    for (Map.Entry<String, List<Integer>> entry : index.entrySet()) {
+      directories.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+    complete = allIndexed;
+  }
+
+  @Nullable
+  private static JarFile open(URL url) {
+    if (!"file".equals(url.getProtocol())) {
+      return null;
+    }
+    try {
+      File file = new File(url.toURI());
+      if (!file.isFile()) {
+        return null;
+      }
+      return new JarFile(file, true, ZipFile.OPEN_READ, Runtime.version());
+    } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+      // let URLClassLoader deal with it
+      return null;
+    }
+  }
+
+  /** Multi-release jars keep the versioned entries under META-INF/versions/N/. */
+  private static String baseName(String name) {
+    if (!name.startsWith(VERSIONS_PREFIX)) {
+      return name;
+    }
+    int slash = name.indexOf('/', VERSIONS_PREFIX.length());
+    return slash < 0 ? name : name.substring(slash + 1);
+  }
+
+  private static String directoryOf(String name) {
+    int slash = name.lastIndexOf('/');
+    return slash < 0 ? "" : name.substring(0, slash);
+  }
+
+  /** Returns true if all the URLs are indexed, so a missing entry is missing from the classpath. */
+  boolean isComplete() {
+    return complete;
+  }
+
+  /** Returns the first entry with the given name, or null if no indexed jar has it. */
+  @Nullable
+  Located find(String name) {
+    int[] candidates = directories.get(directoryOf(name));
+    if (candidates == null) {
+      return null;
+    }
+    for (int jarIndex : candidates) {
+      JarFile jar = jars.get(jarIndex);
+      JarEntry entry = jar.getJarEntry(name);
+      if (entry != null) {
+        return new Located(jar, jarUrls.get(jarIndex), entry);
+      }
+    }
+    return null;
+  }
+
+  /** Returns all the entries with the given name in the classpath order. */
+  List<Located> findAll(String name) {
+    int[] candidates = directories.get(directoryOf(name));
+    if (candidates == null) {
+      return Collections.emptyList();
+    }
+    List<Located> result = new ArrayList<>();
+    for (int jarIndex : candidates) {
+      JarFile jar = jars.get(jarIndex);
+      JarEntry entry = jar.getJarEntry(name);
+      if (entry != null) {
+        result.add(new Located(jar, jarUrls.get(jarIndex), entry));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException failure = null;
+    for (JarFile jar : jars) {
+      try {
+        jar.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
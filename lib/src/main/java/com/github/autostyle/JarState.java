@@ -15,44 +15,53 @@
  */
 package com.github.autostyle;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 /**
  * Grabs a jar and its dependencies from maven,
  * and makes it easy to access the collection in
  * a classloader.
  *
- * Serializes the full state of the jar, so it can
- * catch changes in a SNAPSHOT version.
+ * Jars from the Gradle module cache are identified by their coordinates and the checksum
+ * Gradle has verified, since such artifacts are immutable. The other jars, including
+ * SNAPSHOT versions, are identified by their contents, so it can catch changes in a SNAPSHOT version.
  */
-public final class JarState implements Serializable {
-  private static final long serialVersionUID = 1L;
+public final class JarState implements HashableState {
+  private static final long serialVersionUID = 2L;
 
   private final Set<String> mavenCoordinates;
-  @SuppressWarnings("unused")
+  /** Identities of the immutable artifacts, see {@link #immutableArtifactId(File)}. */
+  private final Set<String> immutableArtifacts;
+  /** Signature of the jars that are not immutable artifacts. */
   private final FileSignature fileSignature;
 
   /*
-   * Transient because not needed to uniquely identify a JarState instance, and also because
-   * Gradle only needs this class to be Serializable so it can compare JarState instances for
-   * incremental builds.
+   * Not a part of hashTo since it is not needed to uniquely identify a JarState instance,
+   * however, it is serialized, so a deserialized copy can still create the classloader.
    */
-  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-  private final transient Set<File> jars;
+  private final Set<File> jars;
 
   @Deprecated // internal
   public JarState(String mavenCoordinate, FileSignature fileSignature, Set<File> jars) {
@@ -61,9 +70,14 @@ public final class JarState implements Serializable {
 
   @Deprecated // internal
   public JarState(Collection<String> mavenCoordinates, FileSignature fileSignature, Set<File> jars) {
+    this(mavenCoordinates, Collections.emptySet(), fileSignature, jars);
+  }
+
+  private JarState(Collection<String> mavenCoordinates, Set<String> immutableArtifacts, FileSignature fileSignature, Set<File> jars) {
     this.mavenCoordinates = new TreeSet<String>(mavenCoordinates);
+    this.immutableArtifacts = immutableArtifacts;
     this.fileSignature = fileSignature;
-    this.jars = jars;
+    this.jars = new LinkedHashSet<>(jars);
   }
 
   /** Provisions the given maven coordinate and its transitive dependencies. */
@@ -81,6 +95,37 @@ public final class JarState implements Serializable {
     return provisionWithTransitives(false, mavenCoordinates, provisioner);
   }
 
+  /**
+   * Provisions the exact coordinates pinned in a lockfile without resolving their transitive dependencies,
+   * so no POM traversal is needed.
+   *
+   * The lockfile lists one {@code group:artifact:version} per line, empty lines and lines starting with {@code #} are ignored.
+   */
+  public static JarState fromLockfile(URL lockfile, Provisioner provisioner) throws IOException {
+    Objects.requireNonNull(lockfile, "lockfile");
+    List<String> mavenCoordinates;
+    try (InputStream is = lockfile.openStream()) {
+      mavenCoordinates = readLockfile(is);
+    }
+    if (mavenCoordinates.isEmpty()) {
+      throw new NoSuchElementException("Lockfile " + lockfile + " lists no coordinates");
+    }
+    return withoutTransitives(mavenCoordinates, provisioner);
+  }
+
+  static List<String> readLockfile(InputStream lockfile) throws IOException {
+    List<String> result = new ArrayList<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(lockfile, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        result.add(line);
+      }
+    }
+    return result;
+  }
+
   private static JarState provisionWithTransitives(boolean withTransitives, Collection<String> mavenCoordinates, Provisioner provisioner) throws IOException {
     Objects.requireNonNull(mavenCoordinates, "mavenCoordinates");
     Objects.requireNonNull(provisioner, "provisioner");
@@ -88,21 +133,95 @@ public final class JarState implements Serializable {
     if (jars.isEmpty()) {
       throw new NoSuchElementException("Resolved to an empty result: " + mavenCoordinates.stream().collect(Collectors.joining(", ")));
     }
-    FileSignature fileSignature = FileSignature.signAsSet(jars);
-    return new JarState(mavenCoordinates, fileSignature, jars);
+    Set<String> immutableArtifacts = new TreeSet<>();
+    List<File> mutableJars = new ArrayList<>();
+    for (File jar : jars) {
+      String id = immutableArtifactId(jar);
+      if (id != null) {
+        immutableArtifacts.add(id);
+      } else {
+        mutableJars.add(jar);
+      }
+    }
+    FileSignature fileSignature = FileSignature.signAsSet(mutableJars);
+    return new JarState(mavenCoordinates, immutableArtifacts, fileSignature, jars);
+  }
+
+  /**
+   * Returns {@code group:module:version:sha1:file} for a non-SNAPSHOT artifact from the Gradle module cache,
+   * or null for the other files.
+   * Gradle stores the artifacts as {@code files-2.1/group/module/version/sha1/file},
+   * and it verifies the checksum before it stores a file there.
+   */
+  @Nullable
+  static String immutableArtifactId(File jar) {
+    File checksum = jar.getParentFile();
+    File version = checksum == null ? null : checksum.getParentFile();
+    File module = version == null ? null : version.getParentFile();
+    File group = module == null ? null : module.getParentFile();
+    File files = group == null ? null : group.getParentFile();
+    if (files == null
+        || !GRADLE_MODULE_CACHE.equals(files.getName())
+        || !SHA1.matcher(checksum.getName()).matches()
+        || version.getName().endsWith("-SNAPSHOT")) {
+      return null;
+    }
+    return group.getName() + ':' + module.getName() + ':' + version.getName() + ':' + checksum.getName() + ':' + jar.getName();
+  }
+
+  private static final String GRADLE_MODULE_CACHE = "files-2.1";
+  /** Gradle does not pad the checksums with zeros, so they might be shorter than 40 characters. */
+  private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{1,40}");
+
+  @Override
+  public void hashTo(StateHasher hasher) {
+    hasher.putStrings(mavenCoordinates);
+    hasher.putStrings(immutableArtifacts);
+    hasher.put(fileSignature);
   }
 
   URL[] jarUrls() {
     return jars.stream().map(File::toURI).map(ThrowingEx.wrap(URI::toURL)).toArray(URL[]::new);
   }
 
+  long jarBytes() {
+    return jars.stream().mapToLong(File::length).sum();
+  }
+
+  /**
+   * Creates a formatter function with the classloader of this JarState,
+   * and keeps the classloader open until the function is closed.
+   * If the created function is {@link FormatterFunc.Closeable}, it is closed before the classloader is released.
+   */
+  public FormatterFunc.Closeable createFormatterFunc(ThrowingEx.Function<ClassLoader, FormatterFunc> factory) {
+    AutostyleCache.Lease lease = AutostyleCache.instance().lease(this, this);
+    try {
+      FormatterFunc function = factory.apply(lease.getClassLoader());
+      if (!(function instanceof FormatterFunc.Closeable)) {
+        return FormatterFunc.Closeable.of(lease, function);
+      }
+      return FormatterFunc.Closeable.of(() -> {
+        try {
+          ((FormatterFunc.Closeable) function).close();
+        } finally {
+          lease.close();
+        }
+      }, function);
+    } catch (Throwable e) {
+      lease.close();
+      throw ThrowingEx.asRuntime(e);
+    }
+  }
+
   /**
    * Returns a classloader containing the only jars in this JarState.
    * Look-up of classes in the `org.slf4j` package
    * are not taken from the JarState, but instead redirected to the class loader of this class to enable
    * passthrough logging.
    *
-   * The lifetime of the underlying cacheloader is controlled by {@link AutostyleCache}.
+   * The underlying classloader is pinned in {@link AutostyleCache}, so it stays open until
+   * {@link AutostyleCache#clear()}. Prefer {@link #createFormatterFunc}, so the classloader
+   * can be closed once it is no longer used.
    */
   public ClassLoader getClassLoader() {
     return AutostyleCache.instance().classloader(this);
@@ -114,7 +233,8 @@ public final class JarState implements Serializable {
    * are not taken from the JarState, but instead redirected to the class loader of this class to enable
    * passthrough logging.
    *
-   * The lifetime of the underlying cacheloader is controlled by {@link AutostyleCache}.
+   * The underlying classloader is pinned in {@link AutostyleCache}, so it stays open until
+   * {@link AutostyleCache#clear()}.
    */
   public ClassLoader getClassLoader(Serializable key) {
     return AutostyleCache.instance().classloader(key, this);
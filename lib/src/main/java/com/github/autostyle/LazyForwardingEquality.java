@@ -21,7 +21,6 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
-import java.util.Arrays;
 import java.util.Objects;
 
 import javax.annotation.Nullable;
@@ -30,6 +29,9 @@ import javax.annotation.Nullable;
  * Implements equality, hashcode, and serialization entirely in terms
  * of lazily-computed state.  The state's serialized form is used to implement
  * equals() and hashCode(), so you don't have to.
+ *
+ * The state must not change once computed: its serialized form and digest
+ * are computed once and cached.
  */
 public abstract class LazyForwardingEquality<T extends Serializable> implements Serializable, NoLambda {
   private static final long serialVersionUID = 1L;
@@ -38,6 +40,10 @@ public abstract class LazyForwardingEquality<T extends Serializable> implements
   @Nullable
   private transient volatile T state;
 
+  /** Lazily initialized - null indicates that the state has not been serialized yet. */
+  @Nullable
+  private transient volatile StateFingerprint fingerprint;
+
   /**
    * This function is guaranteed to be called at most once.
    * If the state is never required, then it will never be called at all.
@@ -80,18 +86,31 @@ public abstract class LazyForwardingEquality<T extends Serializable> implements
     throw new UnsupportedOperationException();
   }
 
+  /** Returns the cached serialized form of the state, computing it on the first call. */
+  final StateFingerprint fingerprint() {
+    StateFingerprint result = fingerprint;
+    if (result == null) {
+      // racy, however all the threads compute the same value
+      result = StateFingerprint.of(state());
+      fingerprint = result;
+    }
+    return result;
+  }
+
   @Override
   public byte[] toBytes() {
-    return toBytes(state());
+    return fingerprint().toBytes();
   }
 
   @Override
   public final boolean equals(Object other) {
-    if (other == null) {
+    if (this == other) {
+      return true;
+    } else if (other == null) {
       return false;
     } else if (getClass().equals(other.getClass())) {
       LazyForwardingEquality<?> otherCast = (LazyForwardingEquality<?>) other;
-      return Arrays.equals(otherCast.toBytes(), toBytes());
+      return fingerprint().equals(otherCast.fingerprint());
     } else {
       return false;
     }
@@ -99,7 +118,7 @@ public abstract class LazyForwardingEquality<T extends Serializable> implements
 
   @Override
   public final int hashCode() {
-    return Arrays.hashCode(toBytes());
+    return fingerprint().hashCode();
   }
 
   static byte[] toBytes(Serializable obj) {
@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
@@ -85,7 +86,7 @@ public enum LineEnding {
     }
   }
 
-  static class ConstantLineEndingPolicy extends NoLambda.EqualityBasedOnSerialization implements Policy {
+  static class ConstantLineEndingPolicy extends NoLambda.EqualityBasedOnSerialization implements Policy, HashableState {
     private static final long serialVersionUID = 1L;
 
     final String lineEnding;
@@ -98,6 +99,47 @@ public enum LineEnding {
     public String getEndingFor(File file) {
       return lineEnding;
     }
+
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putString(lineEnding);
+    }
+  }
+
+  /**
+   * Returns a policy with the line endings the given policy selects for the given files.
+   * The result does not depend on the environment (e.g. git configuration), so it can be used in a different JVM.
+   */
+  public static Policy resolve(Policy policy, Iterable<File> files) {
+    Objects.requireNonNull(policy, "policy");
+    Objects.requireNonNull(files, "files");
+    if (policy instanceof ConstantLineEndingPolicy) {
+      return policy;
+    }
+    TreeMap<String, String> endings = new TreeMap<>();
+    for (File file : files) {
+      endings.put(file.getAbsolutePath(), policy.getEndingFor(file));
+    }
+    return new ResolvedLineEndingPolicy(endings);
+  }
+
+  static class ResolvedLineEndingPolicy extends NoLambda.EqualityBasedOnSerialization implements Policy {
+    private static final long serialVersionUID = 1L;
+
+    final TreeMap<String, String> endings;
+
+    ResolvedLineEndingPolicy(TreeMap<String, String> endings) {
+      this.endings = endings;
+    }
+
+    @Override
+    public String getEndingFor(File file) {
+      String ending = endings.get(file.getAbsolutePath());
+      if (ending == null) {
+        throw new IllegalArgumentException("The line ending is not resolved for " + file);
+      }
+      return ending;
+    }
   }
 
   private static final Policy WINDOWS_POLICY = new ConstantLineEndingPolicy(WINDOWS.str());
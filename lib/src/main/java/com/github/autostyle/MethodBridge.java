@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Calls the methods of formatters that are loaded in a separate classloader.
+ *
+ * The methods are resolved to {@link MethodHandle}s once, so the calls for each file
+ * do not go through {@link Method#invoke}: there's no argument array, no boxing,
+ * and no {@link java.lang.reflect.InvocationTargetException} wrapping.
+ */
+public final class MethodBridge {
+  private MethodBridge() {}
+
+  private static final MethodType STRING_TO_STRING = MethodType.methodType(String.class, String.class);
+
+  /**
+   * Returns a handle for a public method.
+   * For instance methods, the receiver is bound if it is not null,
+   * otherwise the receiver becomes the first argument.
+   */
+  public static MethodHandle bind(Method method, @Nullable Object receiver) throws IllegalAccessException {
+    MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+    if (receiver != null && !Modifier.isStatic(method.getModifiers())) {
+      handle = handle.bindTo(receiver);
+    }
+    return handle;
+  }
+
+  /** Returns a handle for a public constructor. */
+  public static MethodHandle bind(Constructor<?> constructor) throws IllegalAccessException {
+    return MethodHandles.publicLookup().unreflectConstructor(constructor);
+  }
+
+  /**
+   * Returns a function that calls {@code method(input, trailingArgs...)} of the receiver,
+   * or the static method if the receiver is null.
+   */
+  public static FormatterFunc stringFunction(Method method, @Nullable Object receiver, Object... trailingArgs) throws IllegalAccessException {
+    if (!Modifier.isStatic(method.getModifiers())) {
+      Objects.requireNonNull(receiver, "receiver");
+    }
+    MethodHandle handle = bind(method, receiver);
+    if (trailingArgs.length > 0) {
+      handle = MethodHandles.insertArguments(handle, 1, trailingArgs);
+    }
+    return stringFunction(handle);
+  }
+
+  /** Returns a function that calls a handle that accepts a single string and returns a string. */
+  public static FormatterFunc stringFunction(MethodHandle handle) {
+    MethodHandle exact = handle.asType(STRING_TO_STRING);
+    return input -> (String) exact.invokeExact(input);
+  }
+}
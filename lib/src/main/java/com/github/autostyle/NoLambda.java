@@ -16,7 +16,8 @@
 package com.github.autostyle;
 
 import java.io.Serializable;
-import java.util.Arrays;
+
+import javax.annotation.Nullable;
 
 /**
  * Marker interface to prevent lambda implementations of
@@ -42,27 +43,45 @@ public interface NoLambda extends Serializable {
    */
   byte[] toBytes();
 
-  /** An implementation of NoLambda in which equality is based on the serialized representation of itself. */
+  /**
+   * An implementation of NoLambda in which equality is based on the serialized representation of itself.
+   * The serialized form is computed once and cached, so the subclasses must be immutable.
+   */
   abstract class EqualityBasedOnSerialization implements NoLambda {
     private static final long serialVersionUID = 1733798699224768949L;
 
+    @Nullable
+    private transient volatile StateFingerprint fingerprint;
+
+    private StateFingerprint fingerprint() {
+      StateFingerprint result = fingerprint;
+      if (result == null) {
+        // racy, however all the threads compute the same value
+        result = StateFingerprint.of(this);
+        fingerprint = result;
+      }
+      return result;
+    }
+
     @Override
     public byte[] toBytes() {
-      return LazyForwardingEquality.toBytes(this);
+      return fingerprint().toBytes();
     }
 
     @Override
     public int hashCode() {
-      return Arrays.hashCode(toBytes());
+      return fingerprint().hashCode();
     }
 
     @Override
     public boolean equals(Object otherObj) {
-      if (otherObj == null) {
+      if (this == otherObj) {
+        return true;
+      } else if (otherObj == null) {
         return false;
       } else if (otherObj.getClass().equals(this.getClass())) {
         EqualityBasedOnSerialization other = (EqualityBasedOnSerialization) otherObj;
-        return Arrays.equals(toBytes(), other.toBytes());
+        return fingerprint().equals(other.fingerprint());
       } else {
         return false;
       }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the results of {@link Provisioner}, so the steps that share the same resolution context
+ * resolve the same coordinates once.
+ *
+ * The resolution depends on the repositories, the resolution strategy and the dependency verification
+ * of the context, so a cache must not be shared between contexts, and it is not persisted.
+ */
+public final class ProvisionerCache {
+  private final ConcurrentMap<String, Set<File>> resolved = new ConcurrentHashMap<>();
+
+  /** Returns a provisioner that reuses the results of this cache, and delegates the rest of the calls. */
+  public Provisioner wrap(Provisioner delegate) {
+    Objects.requireNonNull(delegate, "delegate");
+    return (withTransitives, mavenCoordinates) -> provision(delegate, withTransitives, mavenCoordinates);
+  }
+
+  private Set<File> provision(Provisioner delegate, boolean withTransitives, Collection<String> mavenCoordinates) {
+    return resolved.computeIfAbsent(key(withTransitives, mavenCoordinates), k ->
+        Collections.unmodifiableSet(
+            new LinkedHashSet<>(delegate.provisionWithTransitives(withTransitives, mavenCoordinates))));
+  }
+
+  private static String key(boolean withTransitives, Collection<String> mavenCoordinates) {
+    return (withTransitives ? "transitive:" : "direct:") + String.join(",", new TreeSet<>(mavenCoordinates));
+  }
+}
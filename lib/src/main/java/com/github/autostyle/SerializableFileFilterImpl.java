@@ -23,7 +23,7 @@ import java.util.List;
 import java.util.Objects;
 
 class SerializableFileFilterImpl {
-  static class SkipFilesNamed extends NoLambda.EqualityBasedOnSerialization implements SerializableFileFilter {
+  static class SkipFilesNamed extends NoLambda.EqualityBasedOnSerialization implements SerializableFileFilter, HashableState {
     private static final long serialVersionUID = 1L;
 
     private final String[] namesToSkip;
@@ -34,6 +34,11 @@ class SerializableFileFilterImpl {
       this.namesToSkip = sorted.toArray(new String[sorted.size()]);
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putStrings(Arrays.asList(namesToSkip));
+    }
+
     @Override
     public boolean accept(File pathname) {
       String name = pathname.getName();
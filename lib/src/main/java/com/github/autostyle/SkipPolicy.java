@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decides which files should be skipped before they are decoded and passed through the steps.
+ *
+ * Broad targets that match every file pull binaries and huge generated files, so the policy looks at the
+ * file size and at the first few kilobytes of the content only.
+ */
+public final class SkipPolicy implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** The number of bytes inspected for binary content and generated-file markers. */
+  public static final int SNIFF_LENGTH = 8192;
+
+  /** Markers of generated files: `@Generated` annotation, and Go-style `// Code generated ... DO NOT EDIT.` comment. */
+  public static final List<String> DEFAULT_GENERATED_MARKERS =
+      Collections.unmodifiableList(Arrays.asList("@Generated", "// Code generated"));
+
+  /** Skips nothing. */
+  public static final SkipPolicy NONE = new SkipPolicy(false, 0, Collections.emptyList());
+
+  /** The reason a file was skipped. */
+  public enum Reason {
+    /** The file contains NUL characters or is not valid in the configured encoding. */
+    BINARY,
+    /** The file exceeds the configured maximum size. */
+    TOO_LARGE,
+    /** The file contains a generated-file marker. */
+    GENERATED
+  }
+
+  private final boolean skipBinary;
+  private final long maxFileSize;
+  private final List<String> generatedMarkers;
+
+  private SkipPolicy(boolean skipBinary, long maxFileSize, Collection<String> generatedMarkers) {
+    this.skipBinary = skipBinary;
+    this.maxFileSize = maxFileSize;
+    this.generatedMarkers = Collections.unmodifiableList(new ArrayList<>(generatedMarkers));
+  }
+
+  public static SkipPolicy.Builder builder() {
+    return new SkipPolicy.Builder();
+  }
+
+  public static class Builder {
+    private boolean skipBinary;
+    private long maxFileSize;
+    private List<String> generatedMarkers = Collections.emptyList();
+
+    private Builder() {}
+
+    /** Skips files with NUL characters or with content that is invalid in the formatter encoding. */
+    public Builder skipBinary(boolean skipBinary) {
+      this.skipBinary = skipBinary;
+      return this;
+    }
+
+    /** Skips files larger than the given number of bytes. Non-positive value means no limit. */
+    public Builder maxFileSize(long maxFileSize) {
+      this.maxFileSize = maxFileSize;
+      return this;
+    }
+
+    /** Skips files which contain any of the markers within their first {@link #SNIFF_LENGTH} bytes. */
+    public Builder generatedMarkers(Collection<String> generatedMarkers) {
+      this.generatedMarkers = new ArrayList<>(Objects.requireNonNull(generatedMarkers, "generatedMarkers"));
+      return this;
+    }
+
+    public SkipPolicy build() {
+      return new SkipPolicy(skipBinary, maxFileSize, generatedMarkers);
+    }
+  }
+
+  public boolean isSkipBinary() {
+    return skipBinary;
+  }
+
+  public long getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public List<String> getGeneratedMarkers() {
+    return generatedMarkers;
+  }
+
+  /** Returns true if the policy might skip a file, so the caller can avoid inspecting files in vain. */
+  public boolean isEnabled() {
+    return skipBinary || maxFileSize > 0 || !generatedMarkers.isEmpty();
+  }
+
+  /** Returns the reason to skip a file of the given size, or null if the file should be processed. */
+  public @Nullable Reason checkSize(long size) {
+    return maxFileSize > 0 && size > maxFileSize ? Reason.TOO_LARGE : null;
+  }
+
+  /**
+   * Returns the reason to skip a file with the given content, or null if the file should be processed.
+   * Only the first {@link #SNIFF_LENGTH} bytes are inspected, so the content might be a prefix of the file
+   * as long as it is longer than {@link #SNIFF_LENGTH} when the file is.
+   * The size is not checked, see {@link #checkSize(long)}.
+   */
+  public @Nullable Reason checkContent(byte[] content, Charset encoding) {
+    if (!skipBinary && generatedMarkers.isEmpty()) {
+      return null;
+    }
+    int length = Math.min(content.length, SNIFF_LENGTH);
+    CharsetDecoder decoder = encoding.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+    CharBuffer chars = CharBuffer.allocate((int) Math.ceil(length * (double) decoder.maxCharsPerByte()));
+    // endOfInput=false, so a multibyte sequence cut at the sniff boundary is not reported as malformed
+    CoderResult result = decoder.decode(ByteBuffer.wrap(content, 0, length), chars, length == content.length);
+    if (skipBinary && result.isError()) {
+      return Reason.BINARY;
+    }
+    chars.flip();
+    if (skipBinary) {
+      for (int i = 0; i < chars.length(); i++) {
+        if (chars.get(i) == '\0') {
+          return Reason.BINARY;
+        }
+      }
+    }
+    if (!generatedMarkers.isEmpty()) {
+      String prefix = chars.toString();
+      for (String marker : generatedMarkers) {
+        if (prefix.contains(marker)) {
+          return Reason.GENERATED;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    SkipPolicy that = (SkipPolicy) o;
+    return skipBinary == that.skipBinary &&
+        maxFileSize == that.maxFileSize &&
+        generatedMarkers.equals(that.generatedMarkers);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(skipBinary, maxFileSize, generatedMarkers);
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Identity of an immutable object along with its digest, so equality checks
+ * compare a short digest instead of re-serializing the object on every call.
+ *
+ * {@link HashableState} objects are identified by their {@link StateHasher} digest,
+ * and the other objects fall back to the digest of their Java-serialized form,
+ * where the nested {@link HashableState} values are replaced with their digests.
+ * Either way, {@link #toBytes()} returns the Java-serialized form.
+ */
+final class StateFingerprint {
+  /** The value is kept, so {@link #toBytes()} can serialize it on demand. */
+  private final Serializable value;
+  @Nullable
+  private volatile byte[] bytes;
+  private final byte[] digest;
+  private final int hashCode;
+
+  private StateFingerprint(Serializable value, byte[] digest) {
+    this.value = value;
+    this.digest = digest;
+    this.hashCode = (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+  }
+
+  static StateFingerprint of(Serializable value) {
+    if (value instanceof HashableState) {
+      return new StateFingerprint(value, StateHasher.hash((HashableState) value));
+    }
+    return new StateFingerprint(value, sha256(StateHasher.identityBytes(value)));
+  }
+
+  private static byte[] sha256(byte[] bytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw ThrowingEx.asRuntime(e);
+    }
+  }
+
+  /**
+   * Returns a copy of the Java-serialized form of the value.
+   * The value is serialized on the first call, since the equality uses its digest only.
+   */
+  byte[] toBytes() {
+    byte[] result = bytes;
+    if (result == null) {
+      // racy, however all the threads compute the same value
+      result = LazyForwardingEquality.toBytes(value);
+      bytes = result;
+    }
+    return result.clone();
+  }
+
+  /** Returns the digest, the callers must not modify it. */
+  byte[] digest() {
+    return digest;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof StateFingerprint)) {
+      return false;
+    }
+    StateFingerprint that = (StateFingerprint) other;
+    return hashCode == that.hashCode && MessageDigest.isEqual(digest, that.digest);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
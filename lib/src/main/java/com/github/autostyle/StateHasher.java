@@ -0,0 +1,259 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Streaming hash of a step state, see {@link HashableState}.
+ *
+ * Every value is written with a type tag and, for variable-length values, with its length,
+ * so different sequences of values never produce the same byte stream.
+ * The encoding does not depend on the JVM, so the resulting digest is stable across machines.
+ */
+public final class StateHasher {
+  private final MessageDigest digest;
+  private final byte[] buffer = new byte[Long.BYTES];
+
+  StateHasher() {
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw ThrowingEx.asRuntime(e);
+    }
+  }
+
+  /** Computes the digest of the given state. */
+  static byte[] hash(HashableState state) {
+    StateHasher hasher = new StateHasher();
+    // the class distinguishes states of different steps that happen to contain the same values
+    hasher.putString(state.getClass().getName());
+    state.hashTo(hasher);
+    return hasher.digest.digest();
+  }
+
+  /**
+   * Returns the Java-serialized form of the value, where the nested {@link HashableState} values
+   * are replaced with their digests, so the values they leave out of the identity
+   * (e.g. the locations of the jars) do not affect the result.
+   */
+  static byte[] identityBytes(Serializable value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new IdentityOutputStream(bytes)) {
+      out.writeObject(value);
+    } catch (IOException e) {
+      throw ThrowingEx.asRuntime(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static final class IdentityOutputStream extends ObjectOutputStream {
+    IdentityOutputStream(OutputStream out) throws IOException {
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      if (obj instanceof HashableState) {
+        return new HashedState(obj.getClass().getName(), hash((HashableState) obj));
+      }
+      return obj;
+    }
+  }
+
+  /** Stands for a nested {@link HashableState} in {@link #identityBytes(Serializable)}. */
+  private static final class HashedState implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @SuppressWarnings("unused")
+    private final String className;
+    @SuppressWarnings("unused")
+    private final byte[] digest;
+
+    HashedState(String className, byte[] digest) {
+      this.className = className;
+      this.digest = digest;
+    }
+  }
+
+  /**
+   * Computes a compact fingerprint of the steps, so build tools can use it for up-to-date checks
+   * instead of serializing the steps. Equal lists of steps produce equal fingerprints.
+   */
+  public static String fingerprint(Collection<? extends FormatterStep> steps) {
+    StateHasher hasher = new StateHasher();
+    hasher.tag('c');
+    hasher.writeInt(steps.size());
+    for (FormatterStep step : steps) {
+      hasher.putStep(step);
+    }
+    return HexFormat.of().formatHex(hasher.digest.digest());
+  }
+
+  private void putStep(FormatterStep step) {
+    if (step instanceof FilterByFileFormatterStep) {
+      FilterByFileFormatterStep filtered = (FilterByFileFormatterStep) step;
+      tag('f');
+      putValue(filtered.filter);
+      putStep(filtered.delegateStep);
+    } else if (step instanceof LazyForwardingEquality) {
+      // reuses the digest that is cached for equals and hashCode
+      tag('q');
+      putString(step.getClass().getName());
+      putBytes(((LazyForwardingEquality<?>) step).fingerprint().digest());
+    } else {
+      putValue(step);
+    }
+  }
+
+  private void tag(char tag) {
+    digest.update((byte) tag);
+  }
+
+  private void writeInt(int value) {
+    buffer[0] = (byte) (value >>> 24);
+    buffer[1] = (byte) (value >>> 16);
+    buffer[2] = (byte) (value >>> 8);
+    buffer[3] = (byte) value;
+    digest.update(buffer, 0, Integer.BYTES);
+  }
+
+  private void writeLong(long value) {
+    for (int i = 0; i < Long.BYTES; i++) {
+      buffer[i] = (byte) (value >>> (56 - 8 * i));
+    }
+    digest.update(buffer, 0, Long.BYTES);
+  }
+
+  public StateHasher putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    tag('s');
+    writeInt(bytes.length);
+    digest.update(bytes);
+    return this;
+  }
+
+  public StateHasher putInt(int value) {
+    tag('i');
+    writeInt(value);
+    return this;
+  }
+
+  public StateHasher putLong(long value) {
+    tag('l');
+    writeLong(value);
+    return this;
+  }
+
+  public StateHasher putBoolean(boolean value) {
+    tag('z');
+    digest.update((byte) (value ? 1 : 0));
+    return this;
+  }
+
+  public StateHasher putBytes(byte[] value) {
+    tag('b');
+    writeInt(value.length);
+    digest.update(value);
+    return this;
+  }
+
+  /** Puts the values in the iteration order. */
+  public StateHasher putStrings(Collection<String> values) {
+    tag('c');
+    writeInt(values.size());
+    for (String value : values) {
+      putString(value);
+    }
+    return this;
+  }
+
+  /** Puts a nested state. */
+  public StateHasher put(HashableState value) {
+    tag('h');
+    putString(value.getClass().getName());
+    value.hashTo(this);
+    tag(')');
+    return this;
+  }
+
+  /**
+   * Puts an arbitrary value: strings, numbers, booleans, enums, collections, maps and nested states
+   * are hashed structurally, and the other values fall back to their Java-serialized form,
+   * see {@link #identityBytes(Serializable)}.
+   * Map entries are ordered by the string form of their keys.
+   */
+  public StateHasher putValue(@Nullable Object value) {
+    if (value == null) {
+      tag('n');
+    } else if (value instanceof String) {
+      putString((String) value);
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      putInt(((Number) value).intValue());
+    } else if (value instanceof Long) {
+      putLong((Long) value);
+    } else if (value instanceof Boolean) {
+      putBoolean((Boolean) value);
+    } else if (value instanceof Enum) {
+      tag('e');
+      putString(((Enum<?>) value).getDeclaringClass().getName());
+      putString(((Enum<?>) value).name());
+    } else if (value instanceof byte[]) {
+      putBytes((byte[]) value);
+    } else if (value instanceof HashableState) {
+      put((HashableState) value);
+    } else if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      tag('c');
+      writeInt(collection.size());
+      for (Object item : collection) {
+        putValue(item);
+      }
+    } else if (value instanceof Map) {
+      Map<String, Object> sorted = new TreeMap<>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+      }
+      tag('m');
+      writeInt(sorted.size());
+      for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+        putString(entry.getKey());
+        putValue(entry.getValue());
+      }
+    } else if (value instanceof Serializable) {
+      tag('j');
+      putString(value.getClass().getName());
+      putBytes(identityBytes((Serializable) value));
+    } else {
+      throw new IllegalArgumentException("Value of " + value.getClass() + " can't be hashed: " + value);
+    }
+    return this;
+  }
+}
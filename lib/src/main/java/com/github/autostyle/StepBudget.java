@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Limits the time a single step can spend on a single file.
+ *
+ * {@link Formatter} starts a budget before it calls a step, and the budget is bound to the
+ * current thread while the step runs. There are two ways to enforce it:
+ *
+ * * regex-based steps wrap their input with {@link #interruptible(CharSequence)}, so the regex
+ *   engine stops as soon as the deadline passes,
+ * * third-party formatters are interrupted by a watchdog thread, and the overshoot is detected
+ *   when the step returns even if the formatter ignores interrupts.
+ */
+public final class StepBudget implements AutoCloseable {
+  private static final StepBudget NONE = new StepBudget("", 0);
+
+  private static final ThreadLocal<StepBudget> CURRENT = new ThreadLocal<>();
+
+  /** Thrown when a step exceeds its time budget. */
+  public static final class ExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    ExceededException(String message, @Nullable Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  private final String stepName;
+  private final long budgetNanos;
+  private final long startNanos;
+  private final Thread thread;
+  @Nullable
+  private StepBudget previous;
+  @Nullable
+  private ScheduledFuture<?> watchdog;
+  private boolean closed;
+  private volatile boolean fired;
+
+  private StepBudget(String stepName, long budgetNanos) {
+    this.stepName = stepName;
+    this.budgetNanos = budgetNanos;
+    this.startNanos = budgetNanos > 0 ? System.nanoTime() : 0;
+    this.thread = Thread.currentThread();
+  }
+
+  /**
+   * Starts the budget for the given step on the current thread.
+   * Non-positive budget means no limit.
+   */
+  static StepBudget start(String stepName, long budgetMillis) {
+    if (budgetMillis <= 0) {
+      return NONE;
+    }
+    StepBudget budget = new StepBudget(stepName, TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+    budget.previous = CURRENT.get();
+    CURRENT.set(budget);
+    budget.watchdog = Watchdog.EXECUTOR.schedule(budget::interrupt, budgetMillis, TimeUnit.MILLISECONDS);
+    return budget;
+  }
+
+  /**
+   * Returns a view of the input that throws {@link ExceededException} once the budget
+   * of the currently running step is exhausted. Regex engines do not react to thread interrupts,
+   * so this is the way to stop a runaway match.
+   * Returns the input as is if there's no budget for the current step.
+   */
+  public static CharSequence interruptible(CharSequence input) {
+    StepBudget budget = CURRENT.get();
+    if (budget == null) {
+      return input;
+    }
+    return new InterruptibleCharSequence(input, budget);
+  }
+
+  private synchronized void interrupt() {
+    if (!closed) {
+      fired = true;
+      thread.interrupt();
+    }
+  }
+
+  boolean isExceeded() {
+    return this != NONE && (fired || System.nanoTime() - startNanos > budgetNanos);
+  }
+
+  /** Throws {@link ExceededException} if the budget is exhausted. */
+  void verify() {
+    if (isExceeded()) {
+      throw exceeded(null);
+    }
+  }
+
+  /** Explains the failure of the step with the budget overshoot if that is the reason. */
+  Throwable explain(Throwable e) {
+    if (e instanceof ExceededException || !isExceeded()) {
+      return e;
+    }
+    return exceeded(e);
+  }
+
+  private ExceededException exceeded(@Nullable Throwable cause) {
+    return new ExceededException("Step " + stepName + " exceeded its time budget of "
+        + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + "ms", cause);
+  }
+
+  @Override
+  public void close() {
+    if (this == NONE) {
+      return;
+    }
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+    synchronized (this) {
+      closed = true;
+      if (watchdog != null) {
+        watchdog.cancel(false);
+      }
+      if (fired) {
+        // The interrupt was ours, so it should not leak to the caller
+        Thread.interrupted();
+      }
+    }
+  }
+
+  private static final class Watchdog {
+    static final ScheduledThreadPoolExecutor EXECUTOR;
+
+    static {
+      EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "autostyle-step-watchdog");
+        thread.setDaemon(true);
+        return thread;
+      });
+      EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+  }
+
+  private static final class InterruptibleCharSequence implements CharSequence {
+    /** Checking the clock on every access is too expensive, so it is checked every 4096 accesses. */
+    private static final int CHECK_MASK = 0xFFF;
+
+    private final CharSequence delegate;
+    private final StepBudget budget;
+    private int accesses;
+
+    InterruptibleCharSequence(CharSequence delegate, StepBudget budget) {
+      this.delegate = delegate;
+      this.budget = budget;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if ((++accesses & CHECK_MASK) == 0) {
+        budget.verify();
+      }
+      return delegate.charAt(index);
+    }
+
+    @Override
+    public int length() {
+      return delegate.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new InterruptibleCharSequence(delegate.subSequence(start, end), budget);
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+}
@@ -15,6 +15,8 @@
  */
 package com.github.autostyle;
 
+import java.io.Serializable;
+
 /**
  * Basic functional interfaces which throw exception, along with
  * static helper methods for calling them.
@@ -31,6 +33,13 @@ public final class ThrowingEx {
     R apply(T input) throws Throwable;
   }
 
+  /**
+   * A function that can throw any exception, and that can be serialized
+   * as long as it captures serializable values only.
+   */
+  @FunctionalInterface
+  public interface SerializableFunction<T, R> extends Function<T, R>, Serializable {}
+
   /** A bi-function that can throw any exception. */
   @FunctionalInterface
   public interface BiFunction<T1, T2, R> {
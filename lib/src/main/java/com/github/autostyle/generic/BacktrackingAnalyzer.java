@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.generic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Detects regular expression constructs that are prone to catastrophic backtracking.
+ *
+ * The analysis is a heuristic: it reports nested unbounded quantifiers like `(a+)+` or `(\s*x*)*`
+ * unless the inner or the outer quantifier is possessive or the group is atomic (`(?>...)`).
+ * It does not prove a pattern is safe, however it catches the most common mistakes that
+ * make a single file take minutes to format.
+ */
+public final class BacktrackingAnalyzer {
+  // prevent direct instantiation
+  private BacktrackingAnalyzer() {}
+
+  private static final class Group {
+    final int start;
+    final boolean atomic;
+    boolean unbounded;
+
+    Group(int start, boolean atomic) {
+      this.start = start;
+      this.atomic = atomic;
+    }
+  }
+
+  /** Returns the human-readable descriptions of the hazards, or an empty list if none were found. */
+  public static List<String> findHazards(String regex) {
+    List<String> hazards = new ArrayList<>();
+    Deque<Group> groups = new ArrayDeque<>();
+    groups.push(new Group(0, false));
+    int length = regex.length();
+    int i = 0;
+    while (i < length) {
+      char c = regex.charAt(i);
+      switch (c) {
+      case '\\':
+        i = skipEscape(regex, i);
+        i = quantifier(regex, i, groups.peek());
+        break;
+      case '[':
+        i = skipCharClass(regex, i);
+        i = quantifier(regex, i, groups.peek());
+        break;
+      case '(':
+        groups.push(new Group(i, regex.startsWith("(?>", i)));
+        i++;
+        break;
+      case ')':
+        if (groups.size() == 1) {
+          // unbalanced parenthesis, Pattern.compile would reject it anyway
+          return hazards;
+        }
+        Group group = groups.pop();
+        Group parent = groups.peek();
+        int end = i + 1;
+        int kind = quantifierKind(regex, end);
+        int next = skipQuantifier(regex, end);
+        boolean outerBacktracks = kind == UNBOUNDED && !isPossessive(regex, end, next);
+        if (group.unbounded && outerBacktracks && !group.atomic) {
+          hazards.add("Regular expression " + regex + " has nested unbounded quantifiers at index "
+              + group.start + ": " + regex.substring(group.start, next)
+              + ". It might cause catastrophic backtracking, consider possessive quantifiers (*+, ++) or atomic groups (?>...)");
+        }
+        parent.unbounded |= outerBacktracks || (group.unbounded && !group.atomic);
+        i = next;
+        break;
+      default:
+        i = quantifier(regex, i + 1, groups.peek());
+      }
+    }
+    return hazards;
+  }
+
+  private static final int NONE = 0;
+  private static final int BOUNDED = 1;
+  private static final int UNBOUNDED = 2;
+
+  /** Marks the group if the atom that ends at {@code i} is followed by a backtracking unbounded quantifier. */
+  private static int quantifier(String regex, int i, Group group) {
+    int kind = quantifierKind(regex, i);
+    int next = skipQuantifier(regex, i);
+    if (kind == UNBOUNDED && !isPossessive(regex, i, next)) {
+      group.unbounded = true;
+    }
+    return next;
+  }
+
+  private static int quantifierKind(String regex, int i) {
+    if (i >= regex.length()) {
+      return NONE;
+    }
+    char c = regex.charAt(i);
+    if (c == '*' || c == '+') {
+      return UNBOUNDED;
+    }
+    if (c == '?') {
+      return BOUNDED;
+    }
+    if (c == '{') {
+      int close = regex.indexOf('}', i);
+      if (close == -1) {
+        return NONE;
+      }
+      // {n,} is unbounded, {n} and {n,m} are bounded
+      return regex.charAt(close - 1) == ',' ? UNBOUNDED : BOUNDED;
+    }
+    return NONE;
+  }
+
+  private static int skipQuantifier(String regex, int i) {
+    if (quantifierKind(regex, i) == NONE) {
+      return i;
+    }
+    int next = quantifierBaseEnd(regex, i);
+    if (next < regex.length() && (regex.charAt(next) == '+' || regex.charAt(next) == '?')) {
+      // possessive or reluctant modifier
+      next++;
+    }
+    return next;
+  }
+
+  private static int quantifierBaseEnd(String regex, int i) {
+    return regex.charAt(i) == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+  }
+
+  private static boolean isPossessive(String regex, int start, int next) {
+    int baseEnd = quantifierBaseEnd(regex, start);
+    return next > baseEnd && regex.charAt(baseEnd) == '+';
+  }
+
+  private static int skipEscape(String regex, int i) {
+    if (i + 1 >= regex.length()) {
+      return regex.length();
+    }
+    if (regex.charAt(i + 1) == 'Q') {
+      int end = regex.indexOf("\\E", i + 2);
+      return end == -1 ? regex.length() : end + 2;
+    }
+    return i + 2;
+  }
+
+  private static int skipCharClass(String regex, int i) {
+    int depth = 0;
+    int j = i;
+    int length = regex.length();
+    while (j < length) {
+      char c = regex.charAt(j);
+      if (c == '\\') {
+        j = skipEscape(regex, j);
+        continue;
+      }
+      if (c == '[') {
+        depth++;
+        // ']' right after '[' or '[^' is a literal
+        if (j + 1 < length && regex.charAt(j + 1) == '^') {
+          j++;
+        }
+        if (j + 1 < length && regex.charAt(j + 1) == ']') {
+          j++;
+        }
+      } else if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return j + 1;
+        }
+      }
+      j++;
+    }
+    return length;
+  }
+}
@@ -17,8 +17,9 @@ package com.github.autostyle.generic;
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
 
-import java.io.Serializable;
 import java.util.Objects;
 
 /** Simple step which checks for consistent indentation characters. */
@@ -54,7 +55,7 @@ public final class IndentStep {
         new State(type, numSpacesPerTab), State::toFormatter);
   }
 
-  private static class State implements Serializable {
+  private static class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     final Type type;
@@ -65,6 +66,12 @@ public final class IndentStep {
       this.numSpacesPerTab = numSpacesPerTab;
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putString(type.name());
+      hasher.putInt(numSpacesPerTab);
+    }
+
     FormatterFunc toFormatter() {
       return new Runtime(this)::format;
     }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.generic;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide bounded cache of compiled {@link Pattern}s keyed by (regex, flags).
+ *
+ * Steps are deserialized for every project, so caching the compiled patterns here
+ * avoids compiling the very same regex once per project.
+ * {@link Pattern} is immutable, so the instances can be shared across threads.
+ */
+public final class PatternCache {
+  private static final Logger logger = Logger.getLogger(PatternCache.class.getName());
+
+  static final int MAX_ENTRIES = 512;
+
+  /**
+   * Set {@code -Dautostyle.regex.lint=false} to skip analysis of the patterns
+   * for catastrophic backtracking.
+   */
+  static final boolean LINT_ENABLED =
+      !"false".equalsIgnoreCase(System.getProperty("autostyle.regex.lint"));
+
+  private static final class Key {
+    final String regex;
+    final int flags;
+
+    Key(String regex, int flags) {
+      this.regex = regex;
+      this.flags = flags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return flags == key.flags && regex.equals(key.regex);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * regex.hashCode() + flags;
+    }
+  }
+
+  private static final Map<Key, Pattern> cache = new LinkedHashMap<Key, Pattern>(64, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, Pattern> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  // prevent direct instantiation
+  private PatternCache() {}
+
+  /** Returns a compiled pattern for the given regex, compiling it only if it is not cached yet. */
+  public static Pattern compile(String regex) {
+    return compile(regex, 0);
+  }
+
+  /** Returns a compiled pattern for the given regex and flags, compiling it only if it is not cached yet. */
+  public static Pattern compile(String regex, int flags) {
+    Objects.requireNonNull(regex, "regex");
+    Key key = new Key(regex, flags);
+    synchronized (cache) {
+      Pattern pattern = cache.get(key);
+      if (pattern != null) {
+        return pattern;
+      }
+    }
+    // Compile outside of the lock, so a slow pattern does not block unrelated lookups
+    Pattern pattern = Pattern.compile(regex, flags);
+    if (LINT_ENABLED) {
+      List<String> hazards = BacktrackingAnalyzer.findHazards(regex);
+      for (String hazard : hazards) {
+        logger.warning(hazard);
+      }
+    }
+    synchronized (cache) {
+      Pattern prev = cache.putIfAbsent(key, pattern);
+      return prev != null ? prev : pattern;
+    }
+  }
+
+  /** Drops all the cached patterns. */
+  public static void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+}
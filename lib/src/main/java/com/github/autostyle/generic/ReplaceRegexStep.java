@@ -17,8 +17,10 @@ package com.github.autostyle.generic;
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
+import com.github.autostyle.StepBudget;
 
-import java.io.Serializable;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
@@ -26,28 +28,46 @@ public final class ReplaceRegexStep {
   // prevent direct instantiation
   private ReplaceRegexStep() {}
 
+  static final int FLAGS = Pattern.UNIX_LINES | Pattern.MULTILINE;
+
   public static FormatterStep create(String name, String regex, String replacement) {
     Objects.requireNonNull(name, "name");
     Objects.requireNonNull(regex, "regex");
     Objects.requireNonNull(replacement, "replacement");
     return FormatterStep.createLazy(name,
-        () -> new State(Pattern.compile(regex, Pattern.UNIX_LINES | Pattern.MULTILINE), replacement),
+        () -> {
+          // fail fast on invalid patterns, the compiled one is reused by toFormatter
+          PatternCache.compile(regex, FLAGS);
+          return new State(regex, FLAGS, replacement);
+        },
         State::toFormatter);
   }
 
-  private static final class State implements Serializable {
-    private static final long serialVersionUID = 1L;
+  private static final class State implements HashableState {
+    private static final long serialVersionUID = 2L;
 
-    private final Pattern regex;
+    private final String regex;
+    private final int flags;
     private final String replacement;
 
-    State(Pattern regex, String replacement) {
+    State(String regex, int flags, String replacement) {
       this.regex = regex;
+      this.flags = flags;
       this.replacement = replacement;
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putString(regex);
+      hasher.putInt(flags);
+      hasher.putString(replacement);
+    }
+
     FormatterFunc toFormatter() {
-      return raw -> regex.matcher(raw).replaceAll(replacement);
+      // Pattern is resolved via the cache, so deserialized copies of the step share the compiled regex
+      Pattern pattern = PatternCache.compile(regex, flags);
+      // The input is interruptible, so a catastrophic backtracking does not outlive the step time budget
+      return raw -> pattern.matcher(StepBudget.interruptible(raw)).replaceAll(replacement);
     }
   }
 }
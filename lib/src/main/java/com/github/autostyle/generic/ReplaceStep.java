@@ -17,8 +17,9 @@ package com.github.autostyle.generic;
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
 
-import java.io.Serializable;
 import java.util.Objects;
 
 public final class ReplaceStep {
@@ -34,7 +35,7 @@ public final class ReplaceStep {
         State::toFormatter);
   }
 
-  private static final class State implements Serializable {
+  private static final class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     private final CharSequence target;
@@ -45,7 +46,17 @@ public final class ReplaceStep {
       this.replacement = replacement;
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putString(target.toString());
+      hasher.putString(replacement.toString());
+    }
+
     FormatterFunc toFormatter() {
+      String target = this.target.toString();
+      String replacement = this.replacement.toString();
+      // String.replace returns the same instance when the target does not occur,
+      // so Formatter detects no-op steps by identity
       return raw -> raw.replace(target, replacement);
     }
   }
@@ -17,13 +17,14 @@ package com.github.autostyle.java;
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
 import com.github.autostyle.JarState;
 import com.github.autostyle.LineEnding;
+import com.github.autostyle.MethodBridge;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 
 import java.io.IOException;
-import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Objects;
 
@@ -84,7 +85,7 @@ public class GoogleJavaFormatStep {
     return DEFAULT_STYLE;
   }
 
-  static final class State implements Serializable {
+  static final class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     /** The jar that contains the eclipse formatter. */
@@ -104,10 +105,20 @@ public class GoogleJavaFormatStep {
       this.style = style;
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    FormatterFunc createFormat() throws Exception {
-      ClassLoader classLoader = jarState.getClassLoader();
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.put(jarState);
+      hasher.putString(stepName);
+      hasher.putString(version);
+      hasher.putString(style);
+    }
 
+    FormatterFunc createFormat() {
+      return jarState.createFormatterFunc(this::createFormat);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private FormatterFunc createFormat(ClassLoader classLoader) throws Exception {
       // instantiate the formatter and get its format method
       Class<?> optionsClass = classLoader.loadClass(OPTIONS_CLASS);
       Class<?> optionsBuilderClass = classLoader.loadClass(OPTIONS_BUILDER_CLASS);
@@ -124,24 +135,26 @@ public class GoogleJavaFormatStep {
 
       Class<?> formatterClazz = classLoader.loadClass(FORMATTER_CLASS);
       Object formatter = formatterClazz.getConstructor(optionsClass).newInstance(options);
-      Method formatterMethod = formatterClazz.getMethod(FORMATTER_METHOD, String.class);
+      FormatterFunc formatterFunc = MethodBridge.stringFunction(formatterClazz.getMethod(FORMATTER_METHOD, String.class), formatter);
 
       FormatterFunc removeUnusedFormatter = createUnusedImportsFormatter(classLoader);
 
       Class<?> importOrdererClass = classLoader.loadClass(IMPORT_ORDERER_CLASS);
-      Method importOrdererMethod = importOrdererClass.getMethod(IMPORT_ORDERER_METHOD, String.class);
+      FormatterFunc importOrderer = MethodBridge.stringFunction(importOrdererClass.getMethod(IMPORT_ORDERER_METHOD, String.class), null);
 
       return input -> {
-        String formatted = (String) formatterMethod.invoke(formatter, input);
+        String formatted = formatterFunc.apply(input);
         String removedUnused = removeUnusedFormatter.apply(formatted);
-        String sortedImports = (String) importOrdererMethod.invoke(null, removedUnused);
+        String sortedImports = importOrderer.apply(removedUnused);
         return fixWindowsBug(sortedImports, version);
       };
     }
 
-    FormatterFunc createRemoveUnusedImportsOnly() throws Exception {
-      ClassLoader classLoader = jarState.getClassLoader();
+    FormatterFunc createRemoveUnusedImportsOnly() {
+      return jarState.createFormatterFunc(this::createRemoveUnusedImportsOnly);
+    }
 
+    private FormatterFunc createRemoveUnusedImportsOnly(ClassLoader classLoader) throws Exception {
       FormatterFunc removeUnusedFormatter = createUnusedImportsFormatter(classLoader);
 
       return input -> fixWindowsBug(removeUnusedFormatter.apply(input), version);
@@ -172,19 +185,10 @@ public class GoogleJavaFormatStep {
         removeUnusedMethod = removeUnusedClass.getMethod(REMOVE_UNUSED_METHOD, String.class);
         removeJavadocConstant = null;
       }
-      return input -> {
-        String removeUnused;
-        try {
-          if (removeJavadocConstant != null) {
-            removeUnused = (String) removeUnusedMethod.invoke(null, input, removeJavadocConstant);
-          } else {
-            removeUnused = (String) removeUnusedMethod.invoke(null, input);
-          }
-        } catch (InvocationTargetException e) {
-          throw e.getCause();
-        }
-        return removeUnused;
-      };
+      if (removeJavadocConstant != null) {
+        return MethodBridge.stringFunction(removeUnusedMethod, null, removeJavadocConstant);
+      }
+      return MethodBridge.stringFunction(removeUnusedMethod, null);
     }
   }
 
@@ -19,10 +19,11 @@ import static com.github.autostyle.java.LibJavaPreconditions.requireElementsNonN
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.AbstractMap.SimpleImmutableEntry;
@@ -97,7 +98,7 @@ public final class ImportOrderStep {
     return new SimpleImmutableEntry<>(index, name);
   }
 
-  private static final class State implements Serializable {
+  private static final class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     private final List<String> importOrder;
@@ -108,6 +109,12 @@ public final class ImportOrderStep {
       this.lineFormat = lineFormat;
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putStrings(importOrder);
+      hasher.putString(lineFormat);
+    }
+
     FormatterFunc toFormatter() {
       return raw -> new ImportSorter(importOrder).format(raw, lineFormat);
     }
@@ -17,13 +17,16 @@ package com.github.autostyle.kotlin;
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
 import com.github.autostyle.JarState;
+import com.github.autostyle.MethodBridge;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 
 import java.io.IOException;
-import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Collections;
@@ -78,7 +81,7 @@ public class KtLintStep {
     return DEFAULT_VERSION;
   }
 
-  static final class State implements Serializable {
+  static final class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     /** Are the files being linted Kotlin script files. */
@@ -106,8 +109,20 @@ public class KtLintStep {
       this.isScript = isScript;
     }
 
-    FormatterFunc createFormat() throws Exception {
-      ClassLoader classLoader = jarState.getClassLoader();
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putBoolean(isScript);
+      hasher.putString(pkg);
+      hasher.put(jarState);
+      hasher.putValue(userData);
+      hasher.putBoolean(useParams);
+    }
+
+    FormatterFunc createFormat() {
+      return jarState.createFormatterFunc(this::createFormat);
+    }
+
+    private FormatterFunc createFormat(ClassLoader classLoader) throws Exception {
 
       // String KtLint::format(String input, Iterable<RuleSet> rules, Function2 errorCallback)
 
@@ -157,34 +172,24 @@ public class KtLintStep {
             /* script */ boolean.class,
             /* editorConfigPath, nullable */ String.class,
             /* debug */ boolean.class);
+        // new Params(null, input, ruleSets, userData, formatterCallback, isScript, null, false)
+        MethodHandle params = MethodHandles.insertArguments(
+            MethodBridge.bind(constructor), 2,
+            /* ruleSets */ ruleSets,
+            /* userData */ userData,
+            /* callback */ formatterCallback,
+            /* script */ isScript,
+            /* editorConfigPath, nullable */ null,
+            /* debug */ false);
+        params = MethodHandles.insertArguments(params, 0, /* fileName, nullable */ (Object) null);
         Method formatterMethod = ktlintClass.getMethod("format", paramsClass);
-        formatterFunc = input -> {
-          try {
-            Object params = constructor.newInstance(
-                /* fileName, nullable */ null,
-                /* text */ input,
-                /* ruleSets */ ruleSets,
-                /* userData */ userData,
-                /* callback */ formatterCallback,
-                /* script */ isScript,
-                /* editorConfigPath, nullable */ null,
-                /* debug */ false);
-            return (String) formatterMethod.invoke(ktlint, params);
-          } catch (InvocationTargetException e) {
-            throw e.getCause();
-          }
-        };
+        formatterFunc = MethodBridge.stringFunction(
+            MethodHandles.filterArguments(MethodBridge.bind(formatterMethod, ktlint), 0, params));
       } else {
         // and its format method
         String formatterMethodName = isScript ? "formatScript" : "format";
         Method formatterMethod = ktlintClass.getMethod(formatterMethodName, String.class, Iterable.class, Map.class, function2Interface);
-        formatterFunc = input -> {
-          try {
-            return (String) formatterMethod.invoke(ktlint, input, ruleSets, userData, formatterCallback);
-          } catch (InvocationTargetException e) {
-            throw e.getCause();
-          }
-        };
+        formatterFunc = MethodBridge.stringFunction(formatterMethod, ktlint, ruleSets, userData, formatterCallback);
       }
 
       return formatterFunc;
@@ -19,13 +19,13 @@ import static com.github.autostyle.markdown.LibMarkdownPreconditions.requireKeys
 
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
 import com.github.autostyle.JarState;
+import com.github.autostyle.MethodBridge;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 import com.github.autostyle.ThrowingEx.Supplier;
 
-import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -79,7 +79,7 @@ public class FreshMarkStep {
     return DEFAULT_VERSION;
   }
 
-  private static class State implements Serializable {
+  private static class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     /** The jar that contains the eclipse formatter. */
@@ -94,23 +94,24 @@ public class FreshMarkStep {
       requireKeysAndValuesNonNull(this.properties);
     }
 
-    FormatterFunc createFormat() throws Exception {
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.put(jarState);
+      hasher.putValue(properties);
+    }
+
+    FormatterFunc createFormat() {
+      return jarState.createFormatterFunc(this::createFormat);
+    }
+
+    private FormatterFunc createFormat(ClassLoader classLoader) throws Exception {
       Logger logger = Logger.getLogger(FreshMarkStep.class.getName());
       Consumer<String> loggingStream = logger::warning;
 
-      ClassLoader classLoader = jarState.getClassLoader();
-
       // instantiate the formatter and get its format method
       Class<?> formatterClazz = classLoader.loadClass(FORMATTER_CLASS);
       Object formatter = formatterClazz.getConstructor(Map.class, Consumer.class).newInstance(properties, loggingStream);
-      Method method = formatterClazz.getMethod(FORMATTER_METHOD, String.class);
-      return input -> {
-        try {
-          return (String) method.invoke(formatter, input);
-        } catch (InvocationTargetException e) {
-          throw e.getCause();
-        }
-      };
+      return MethodBridge.stringFunction(formatterClazz.getMethod(FORMATTER_METHOD, String.class), formatter);
     }
   }
 }
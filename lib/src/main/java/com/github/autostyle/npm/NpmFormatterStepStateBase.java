@@ -19,16 +19,16 @@ import static java.util.Objects.requireNonNull;
 
 import com.github.autostyle.FileSignature;
 import com.github.autostyle.FormatterFunc;
+import com.github.autostyle.HashableState;
 import com.github.autostyle.JarState;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 import com.github.autostyle.ThrowingEx;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Collections;
@@ -39,7 +39,7 @@ import java.util.Optional;
 
 import javax.annotation.Nullable;
 
-abstract class NpmFormatterStepStateBase implements Serializable {
+abstract class NpmFormatterStepStateBase implements HashableState {
 
   private static final long serialVersionUID = -5849375492831208496L;
 
@@ -48,8 +48,8 @@ abstract class NpmFormatterStepStateBase implements Serializable {
   @SuppressWarnings("unused")
   private final FileSignature nodeModulesSignature;
 
-  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-  public final transient File nodeModulesDir;
+  /** Serialized, so a deserialized copy of the state can load the modules, however it is not a part of the identity. */
+  public final File nodeModulesDir;
 
   private final NpmConfig npmConfig;
 
@@ -98,8 +98,21 @@ abstract class NpmFormatterStepStateBase implements Serializable {
             .orElseThrow(() -> new IllegalStateException("cannot automatically determine npm executable and none was specifically supplied!")));
   }
 
-  protected NodeJSWrapper nodeJSWrapper() {
-    return new NodeJSWrapper(this.jarState.getClassLoader()); // TODO (simschla, 02.08.18): cache this instance
+  /**
+   * The installed modules are defined by the package.json content, so the location of the modules
+   * does not affect the identity, and the state is identified the same way on every machine.
+   */
+  @Override
+  public void hashTo(StateHasher hasher) {
+    hasher.putString(stepName);
+    hasher.putString(npmConfig.getPackageJsonContent());
+    hasher.putString(npmConfig.getNpmModule());
+    hasher.put(jarState);
+  }
+
+  /** Creates a formatter that uses NodeJS, and keeps the J2V8 classloader open until the formatter is closed. */
+  protected FormatterFunc.Closeable createFormatterFunc(ThrowingEx.Function<NodeJSWrapper, FormatterFunc> factory) {
+    return jarState.createFormatterFunc(classLoader -> factory.apply(new NodeJSWrapper(classLoader)));
   }
 
   protected File nodeModulePath() {
@@ -16,26 +16,25 @@
 package com.github.autostyle.npm;
 
 import com.github.autostyle.FileSignature;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
 import com.github.autostyle.ThrowingEx;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.Map;
 import java.util.TreeMap;
 
 import javax.annotation.Nullable;
 
-public class PrettierConfig implements Serializable {
+public class PrettierConfig implements HashableState {
 
   private static final long serialVersionUID = -8709340269833126583L;
 
-  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+  /** Serialized, so a deserialized copy can read the file, however the identity is defined by the signature. */
   @Nullable
-  private final transient File prettierConfigPath;
+  private final File prettierConfigPath;
 
-  @SuppressWarnings("unused")
   private final FileSignature prettierConfigPathSignature;
 
   private final TreeMap<String, Object> options;
@@ -50,6 +49,12 @@ public class PrettierConfig implements Serializable {
     }
   }
 
+  @Override
+  public void hashTo(StateHasher hasher) {
+    hasher.put(prettierConfigPathSignature);
+    hasher.putValue(options);
+  }
+
   @Nullable
   public File getPrettierConfigPath() {
     return prettierConfigPath;
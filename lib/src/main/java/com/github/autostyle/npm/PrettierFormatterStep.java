@@ -21,6 +21,7 @@ import static java.util.Objects.requireNonNull;
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 import com.github.autostyle.ThrowingEx;
 
 import java.io.File;
@@ -76,12 +77,20 @@ public class PrettierFormatterStep {
       this.prettierConfig = requireNonNull(prettierConfig);
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      super.hashTo(hasher);
+      hasher.put(prettierConfig);
+    }
+
     @Override
     @Nonnull
     public FormatterFunc createFormatterFunc() {
+      return createFormatterFunc(this::createFormatterFunc);
+    }
 
+    private FormatterFunc createFormatterFunc(NodeJSWrapper nodeJSWrapper) {
       try {
-        final NodeJSWrapper nodeJSWrapper = nodeJSWrapper();
         final V8ObjectWrapper prettier = nodeJSWrapper.require(nodeModulePath());
 
         @SuppressWarnings("unchecked")
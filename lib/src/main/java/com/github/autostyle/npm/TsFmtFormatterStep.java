@@ -21,6 +21,7 @@ import static java.util.Objects.requireNonNull;
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 import com.github.autostyle.ThrowingEx;
 
 import java.io.File;
@@ -90,13 +91,22 @@ public class TsFmtFormatterStep {
       this.inlineTsFmtSettings = inlineTsFmtSettings == null ? new TreeMap<>() : new TreeMap<>(inlineTsFmtSettings);
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      super.hashTo(hasher);
+      hasher.putValue(inlineTsFmtSettings);
+      hasher.putValue(configFile);
+    }
+
     @Override
     @Nonnull
     public FormatterFunc createFormatterFunc() {
+      return createFormatterFunc(this::createFormatterFunc);
+    }
 
+    private FormatterFunc createFormatterFunc(NodeJSWrapper nodeJSWrapper) {
       Map<String, Object> tsFmtOptions = unifyOptions();
 
-      final NodeJSWrapper nodeJSWrapper = nodeJSWrapper();
       final V8ObjectWrapper tsFmt = nodeJSWrapper.require(nodeModulePath());
       final V8ObjectWrapper formatterOptions = nodeJSWrapper.createNewObject(tsFmtOptions);
 
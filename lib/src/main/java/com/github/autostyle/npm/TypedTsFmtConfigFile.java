@@ -18,15 +18,15 @@ package com.github.autostyle.npm;
 import static java.util.Objects.requireNonNull;
 
 import com.github.autostyle.FileSignature;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
 import com.github.autostyle.ThrowingEx;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.Locale;
 
-public class TypedTsFmtConfigFile implements Serializable {
+public class TypedTsFmtConfigFile implements HashableState {
 
   private static final long serialVersionUID = -4442310349275775501L;
 
@@ -34,8 +34,6 @@ public class TypedTsFmtConfigFile implements Serializable {
 
   private final File configFile;
 
-  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
-  @SuppressWarnings("unused")
   private final FileSignature configFileSignature;
 
   public TypedTsFmtConfigFile(TsConfigFileType configFileType, File configFile) {
@@ -48,6 +46,13 @@ public class TypedTsFmtConfigFile implements Serializable {
     }
   }
 
+  /** The location of the file is not a part of the identity, the signature is. */
+  @Override
+  public void hashTo(StateHasher hasher) {
+    hasher.putValue(configFileType);
+    hasher.put(configFileSignature);
+  }
+
   TsConfigFileType configFileType() {
     return configFileType;
   }
@@ -18,12 +18,16 @@ package com.github.autostyle.scala;
 import com.github.autostyle.FileSignature;
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
 import com.github.autostyle.JarState;
+import com.github.autostyle.MethodBridge;
 import com.github.autostyle.Provisioner;
+import com.github.autostyle.StateHasher;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -61,7 +65,7 @@ public class ScalaFmtStep {
     return DEFAULT_VERSION;
   }
 
-  static final class State implements Serializable {
+  static final class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     final JarState jarState;
@@ -80,8 +84,17 @@ public class ScalaFmtStep {
       this.configSignature = FileSignature.signAsList(configFile == null ? Collections.emptySet() : Collections.singleton(configFile));
     }
 
-    FormatterFunc createFormat() throws Exception {
-      ClassLoader classLoader = jarState.getClassLoader();
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.put(jarState);
+      hasher.put(configSignature);
+    }
+
+    FormatterFunc createFormat() {
+      return jarState.createFormatterFunc(this::createFormat);
+    }
+
+    private FormatterFunc createFormat(ClassLoader classLoader) throws Exception {
 
       // scalafmt returns instances of formatted, we get result by calling get()
       Class<?> formatted = classLoader.loadClass("org.scalafmt.Formatted");
@@ -129,10 +142,10 @@ public class ScalaFmtStep {
 
         config = invokeNoArg(invokeNoArg(either, "right"), "get");
       }
-      return input -> {
-        Object resultInsideFormatted = formatMethod.invoke(null, input, config, emptyRange);
-        return (String) formattedGet.invoke(resultInsideFormatted);
-      };
+      // format(input, config, emptyRange).get()
+      MethodHandle format = MethodHandles.insertArguments(MethodBridge.bind(formatMethod, null), 1, config, emptyRange);
+      MethodHandle get = MethodBridge.bind(formattedGet, null);
+      return MethodBridge.stringFunction(MethodHandles.filterReturnValue(format, get.asType(get.type().changeParameterType(0, format.type().returnType()))));
     }
   }
 
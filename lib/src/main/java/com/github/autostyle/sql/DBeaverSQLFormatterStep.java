@@ -19,9 +19,10 @@ import com.github.autostyle.FileSignature;
 import com.github.autostyle.FormatterFunc;
 import com.github.autostyle.FormatterProperties;
 import com.github.autostyle.FormatterStep;
+import com.github.autostyle.HashableState;
+import com.github.autostyle.StateHasher;
 
 import java.io.File;
-import java.io.Serializable;
 
 /** SQL formatter step which wraps up DBeaver's SqlTokenizedFormatter implementation. */
 public class DBeaverSQLFormatterStep {
@@ -37,7 +38,7 @@ public class DBeaverSQLFormatterStep {
         State::createFormat);
   }
 
-  static final class State implements Serializable {
+  static final class State implements HashableState {
     private static final long serialVersionUID = 1L;
 
     final FileSignature settingsSignature;
@@ -46,6 +47,11 @@ public class DBeaverSQLFormatterStep {
       this.settingsSignature = FileSignature.signAsList(settingsFiles);
     }
 
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.put(settingsSignature);
+    }
+
     FormatterFunc createFormat() throws Exception {
       FormatterProperties preferences = FormatterProperties.from(settingsSignature.files());
       DBeaverSQLFormatter dbeaverSqlFormatter = new DBeaverSQLFormatter(preferences.getProperties());
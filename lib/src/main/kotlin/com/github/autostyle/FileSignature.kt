@@ -17,7 +17,6 @@ package com.github.autostyle
 
 import java.io.File
 import java.io.IOException
-import java.io.Serializable
 import java.security.MessageDigest
 import java.util.*
 
@@ -25,16 +24,18 @@ import java.util.*
 class FileSignature private constructor(
     keyPaths: Map<File, String>,
     /*
-     * Transient because not needed to uniquely identify a FileSignature instance, and also because
-     * Gradle only needs this class to be Serializable so it can compare FileSignature instances for
-     * incremental builds.
+     * Not needed to uniquely identify a FileSignature instance, see hashTo, however the files are
+     * serialized, so the steps can read them after deserialization (e.g. in a worker process).
      */
-    @field:Transient
     private val files: List<File>,
     ordered: Boolean
-) : Serializable {
+) : HashableState {
     private val digest: ByteArray
 
+    override fun hashTo(hasher: StateHasher) {
+        hasher.putBytes(digest)
+    }
+
     /** Returns all of the files in this signature */
     fun files(): Collection<File> = Collections.unmodifiableList(files)
 
@@ -64,11 +65,14 @@ class FileSignature private constructor(
                     this
                 }
             }
-        for ((relativePath, file) in contents) {
-            md.update(relativePath.toByteArray())
+            .toList()
+        // The contents are memoized across the signatures, and the rest of the files are read in parallel
+        val fileDigests = FileDigestCache.digestAll(contents.map { it.second })
+        for ((index, entry) in contents.withIndex()) {
+            md.update(entry.first.toByteArray())
             // 0-byte is unlikely to appear in a file path, so it should be safe for use as a delimiter
             md.update(0)
-            file.forEachBlock { buffer, bytesRead -> md.update(buffer, 0, bytesRead) }
+            md.update(fileDigests[index])
         }
         digest = md.digest()
     }
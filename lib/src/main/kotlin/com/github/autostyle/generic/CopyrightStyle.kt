@@ -1,8 +1,13 @@
 package com.github.autostyle.generic
 
+import java.io.Serializable
 import java.util.function.Function
 
-interface CopyrightStyle {
+/**
+ * The style is a part of the license header step, so it should be [Serializable]
+ * for the step to be portable.
+ */
+interface CopyrightStyle : Serializable {
     val licenseFormatter: Function<String, String>
     val replacer: CopyrightReplacer
 }
@@ -5,6 +5,10 @@ import com.github.autostyle.cpp.CppDefaults
 import com.github.autostyle.css.CssDefaults
 import com.github.autostyle.java.JavaDefaults
 import java.io.File
+import java.io.IOException
+import java.io.ObjectOutputStream
+import java.io.OutputStream
+import java.util.concurrent.ConcurrentHashMap
 
 val DEFAULT_HEADER_STYLES =
     JavaDefaults.EXTENSIONS.associateWith { DefaultCopyrightStyle.JAVA } +
@@ -21,15 +25,35 @@ class ImprovedLicenseHeaderStep(
     val extraNewline: Boolean,
     val styles: Map<String, CopyrightStyle>
 ) : FormatterStep {
+    /**
+     * The serialized form of the step is its identity, so the cache is not serialized,
+     * and it is re-created on the first use after deserialization.
+     */
     @Transient
-    private val formatted = mutableMapOf<CopyrightStyle, String>()
+    private var formatted: MutableMap<CopyrightStyle, String>? = null
+
+    @Transient
+    private var portable: Boolean? = null
 
     override fun getName() = "licenseHeader"
 
+    /** The step is portable unless a custom [CopyrightStyle] can't be serialized. */
+    override fun isPortable() =
+        portable ?: canSerialize().also { portable = it }
+
+    private fun canSerialize() =
+        try {
+            ObjectOutputStream(OutputStream.nullOutputStream()).use { it.writeObject(this) }
+            true
+        } catch (e: IOException) {
+            false
+        }
+
     override fun format(rawUnix: String, file: File): String? {
         val style = styles[file.extension] ?: styles[""] ?: return null
 
-        val newCopyright = formatted.getOrPut(style) {
+        val cache = formatted ?: ConcurrentHashMap<CopyrightStyle, String>().also { formatted = it }
+        val newCopyright = cache.getOrPut(style) {
             val v = Regex.escapeReplacement(style.licenseFormatter.apply(copyright))
             if (extraNewline) v + "\n\n" else v + '\n'
         }
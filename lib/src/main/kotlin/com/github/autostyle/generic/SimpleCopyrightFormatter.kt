@@ -1,12 +1,13 @@
 package com.github.autostyle.generic
 
+import java.io.Serializable
 import java.util.function.Function
 
 abstract class SimpleCopyrightFormatter(
     val commentStart: String? = null,
     val commentLine: String? = null,
     val commentEnd: String? = null
-) : Function<String, String> {
+) : Function<String, String>, Serializable {
     object Java : SimpleCopyrightFormatter("/*", " * ", " */")
     object Shell : SimpleCopyrightFormatter("# ", "# ", "# ")
     object Bat : SimpleCopyrightFormatter("rem ", "rem ", "rem ")
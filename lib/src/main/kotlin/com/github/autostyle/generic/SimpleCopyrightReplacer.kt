@@ -1,6 +1,7 @@
 package com.github.autostyle.generic
 
 import org.intellij.lang.annotations.Language
+import java.io.Serializable
 
 @Language("RegExp")
 private const val JAVA_MULTILINE_COMMENT = "/[*](?>[^\\\\*]++|[*][^/]|\\\\[*])*+[*]/"
@@ -26,7 +27,7 @@ private const val XML_PI = "<[?](?>[^?]++|[?][^>])*+[?]>"
 @Language("RegExp")
 private const val XML_COMMENT = "<!--(?>[^-]++|(?!-->)[^<>])*+-->"
 
-interface CopyrightReplacer {
+interface CopyrightReplacer : Serializable {
     fun replace(input: String, copyright: String): String
 
     object Java : TextAndHeaderCopyrightReplacer(
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.Formatter
+import com.github.autostyle.FormatterStep
+import com.github.autostyle.FormatterWarmUp
+import com.github.autostyle.LineEnding
+import com.github.autostyle.SkipPolicy
+import com.github.autostyle.StateHasher
+import com.github.autostyle.gradle.ext.conv
+import org.gradle.api.DefaultTask
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.FileSystemOperations
+import org.gradle.api.file.FileType
+import org.gradle.api.model.ObjectFactory
+import org.gradle.api.provider.Provider
+import org.gradle.api.tasks.*
+import org.gradle.kotlin.dsl.listProperty
+import org.gradle.kotlin.dsl.property
+import org.gradle.work.ChangeType
+import org.gradle.work.DisableCachingByDefault
+import org.gradle.work.InputChanges
+import java.io.File
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import javax.inject.Inject
+
+/**
+ * The files of a single project that [AutostyleAggregateTask] formats.
+ * The results are stored to [outputDirectory] in the build directory of the project,
+ * so `autostyle*Check` and `autostyle*Apply` tasks of the project use them as usual.
+ */
+abstract class AggregateFormatUnit @Inject constructor(
+    objects: ObjectFactory,
+    @get:Input val projectPath: String,
+    @get:Internal val projectDirectory: File
+) : AutostyleFormatSpec {
+    @get:Input
+    override val encoding = objects.property<String>().conv("UTF-8")
+
+    @get:Input
+    override val lineEndingsPolicy = objects.property<LineEnding.Policy>()
+        .conv(LineEnding.UNIX.createPolicy())
+
+    @get:Internal
+    override val steps = objects.listProperty<FormatterStep>()
+
+    @get:Input
+    val stepsFingerprint: Provider<String> = steps.map { StateHasher.fingerprint(it) }
+
+    @get:Input
+    override val skipPolicy = objects.property<SkipPolicy>().conv(SkipPolicy.NONE)
+
+    @get:Internal
+    override val stepTimeout = objects.property<Duration>()
+
+    @get:InputFiles
+    @get:SkipWhenEmpty
+    @get:IgnoreEmptyDirectories
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    override val sourceFiles: ConfigurableFileCollection = objects.fileCollection()
+
+    @get:OutputDirectory
+    val outputDirectory = objects.directoryProperty()
+
+    @get:OutputDirectory
+    val divergingDirectory = objects.directoryProperty()
+}
+
+/**
+ * Formats the files of a format (e.g. `java`) for all the projects of the build in a single task,
+ * so the build does not pay the task overhead for every project.
+ * It is enabled with `autostyle.aggregate=true` Gradle property.
+ * The root project registers the task, and [units] collects the files of the projects
+ * when the task is realized, so the projects do not configure the root task.
+ *
+ * The projects are formatted concurrently, and the formatters of the equal steps are created once
+ * and reused across the projects, see [FormatterWarmUp].
+ */
+@DisableCachingByDefault(because = "The outputs are located in the build directories of the projects")
+abstract class AutostyleAggregateTask @Inject constructor(
+    objects: ObjectFactory,
+    private val fileSystemOperations: FileSystemOperations
+) : DefaultTask() {
+    @get:Nested
+    val units = objects.listProperty<AggregateFormatUnit>()
+
+    /** Keeps the formatter classloaders between builds, see [AutostyleCacheService]. */
+    @get:Internal
+    val cacheService = objects.property<AutostyleCacheService>()
+
+    /**
+     * The number of projects that are formatted concurrently.
+     * It does not affect the formatting result, so it is not an input.
+     */
+    @get:Internal
+    val parallelism = objects.property<Int>().conv(project.gradle.startParameter.maxWorkerCount)
+
+    private val rootDirectory = project.rootDir
+
+    init {
+        notCompatibleWithConfigurationCacheUnlessPortable { units.get().flatMap { it.steps.get() } }
+    }
+
+    private class Job(val unit: AggregateFormatUnit, val files: List<File>)
+
+    @TaskAction
+    fun run(inputChanges: InputChanges) {
+        // Configures the classloader cache before the formatters are created
+        cacheService.orNull
+        val jobs = units.get().mapNotNull { collectChanges(it, inputChanges) }
+        if (jobs.isEmpty()) {
+            return
+        }
+        // The formatters are created in the task thread, since the steps might need to resolve dependencies
+        val formatters = jobs.map { it.unit.createFormatter(rootDirectory) }
+        // The formatters of the equal steps are created once, and the projects pick them from the pool,
+        // so the jobs wait for the warm-up instead of creating the same formatters concurrently
+        FormatterWarmUp.start(formatters.flatMap { it.steps }, false).join()
+
+        val executor = Executors.newFixedThreadPool(parallelism.get().coerceIn(1, jobs.size)) {
+            Thread(it, "autostyle-aggregate").apply { isDaemon = true }
+        }
+        val summary = try {
+            jobs.zip(formatters)
+                .map { (job, formatter) ->
+                    executor.submit(Callable { format(job, formatter) })
+                }
+                .map {
+                    try {
+                        it.get()
+                    } catch (e: ExecutionException) {
+                        throw e.cause ?: e
+                    }
+                }
+                .reduce(FormatSummary::plus)
+        } finally {
+            executor.shutdownNow()
+        }
+        summary.report(logger)
+    }
+
+    private fun collectChanges(unit: AggregateFormatUnit, inputChanges: InputChanges): Job? {
+        val outputDir = unit.outputDirectory.get().asFile
+        if (!inputChanges.isIncremental) {
+            fileSystemOperations.delete { delete(outputDir) }
+        }
+        outputDir.mkdirs()
+        val divergingDir = unit.divergingDirectory.get().asFile
+        fileSystemOperations.delete { delete(divergingDir) }
+        divergingDir.mkdirs()
+
+        val files = mutableListOf<File>()
+        inputChanges.getFileChanges(unit.sourceFiles).forEach {
+            if (it.changeType == ChangeType.REMOVED) {
+                outputDir.resolve(it.file.relativeTo(unit.projectDirectory)).delete()
+            }
+            if (it.changeType != ChangeType.REMOVED && it.fileType == FileType.FILE) {
+                files.add(it.file)
+            }
+        }
+        return if (files.isEmpty()) null else Job(unit, files)
+    }
+
+    private fun format(job: Job, formatter: Formatter): FormatSummary {
+        val unit = job.unit
+        val summary = formatter.use {
+            it.formatFiles(
+                job.files,
+                unit.projectDirectory,
+                unit.outputDirectory.get().asFile,
+                unit.divergingDirectory.get().asFile,
+                logger
+            )
+        }
+        // The file names are relative to the project, so the project path makes the report unambiguous
+        val prefix = unit.projectPath.removeSuffix(":") + ":"
+        return FormatSummary(
+            summary.cycles.map { prefix + it },
+            summary.diverges.map { prefix + it },
+            summary.skipped
+        )
+    }
+}
@@ -16,6 +16,7 @@
 package com.github.autostyle.gradle
 
 import org.gradle.api.DefaultTask
+import org.gradle.api.file.ProjectLayout
 import org.gradle.api.model.ObjectFactory
 import org.gradle.api.tasks.*
 import org.gradle.work.DisableCachingByDefault
@@ -23,7 +24,8 @@ import javax.inject.Inject
 
 @DisableCachingByDefault(because = "Autostyle rewrites sources in place, so caching brings no benefit")
 open class AutostyleApplyTask @Inject constructor(
-    objects: ObjectFactory
+    objects: ObjectFactory,
+    layout: ProjectLayout
 ) : DefaultTask() {
     @InputFiles
     @SkipWhenEmpty
@@ -31,11 +33,13 @@ open class AutostyleApplyTask @Inject constructor(
     @PathSensitive(PathSensitivity.RELATIVE)
     val inputDirectory = objects.directoryProperty()
 
+    private val projectDirectory = layout.projectDirectory.asFile
+
     @TaskAction
     fun run() {
-        val projectDir = project.projectDir
+        val projectDir = projectDirectory
         var hasUpdates = false
-        project.fileTree(inputDirectory).visit {
+        inputDirectory.asFileTree.visit {
             if (!isDirectory) {
                 hasUpdates = true
                 println("Apply: $path => ${projectDir.resolve(path)}")
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.AutostyleCache
+import com.github.autostyle.FileDigestCache
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.Property
+import org.gradle.api.services.BuildService
+import org.gradle.api.services.BuildServiceParameters
+import java.time.Duration
+
+/**
+ * Configures [AutostyleCache] for the build.
+ * The cache lives as long as the Gradle daemon, so the formatter classloaders stay warm between builds.
+ * The classloaders are closed when they are idle for [Parameters.idleTimeout], or when the heap runs low.
+ * The digests of the formatter jars are persisted to [Parameters.fileDigests], so the next daemon
+ * does not need to read the jars again.
+ */
+abstract class AutostyleCacheService : BuildService<AutostyleCacheService.Parameters>, AutoCloseable {
+    interface Parameters : BuildServiceParameters {
+        val maxUnusedClassLoaders: Property<Int>
+        val idleTimeout: Property<Duration>
+        val fileDigests: RegularFileProperty
+    }
+
+    init {
+        AutostyleCache.setLimits(parameters.maxUnusedClassLoaders.get(), parameters.idleTimeout.get())
+        parameters.fileDigests.orNull?.let { FileDigestCache.load(it.asFile) }
+    }
+
+    override fun close() {
+        // The build is finished, however, the classloaders are kept for the next build
+        AutostyleCache.trim()
+        parameters.fileDigests.orNull?.let { FileDigestCache.save(it.asFile) }
+    }
+}
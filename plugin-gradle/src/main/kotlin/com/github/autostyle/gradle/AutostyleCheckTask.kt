@@ -20,6 +20,7 @@ import com.github.autostyle.gradle.ext.conv
 import org.gradle.api.DefaultTask
 import org.gradle.api.GradleException
 import org.gradle.api.Project
+import org.gradle.api.file.ProjectLayout
 import org.gradle.api.model.ObjectFactory
 import org.gradle.api.tasks.*
 import org.gradle.kotlin.dsl.extra
@@ -30,7 +31,8 @@ import javax.inject.Inject
 
 @DisableCachingByDefault(because = "Autostyle reports formatting violations and is not worth caching")
 open class AutostyleCheckTask @Inject constructor(
-    objects: ObjectFactory
+    objects: ObjectFactory,
+    layout: ProjectLayout
 ) : DefaultTask() {
     @InputFiles
     @SkipWhenEmpty
@@ -64,20 +66,22 @@ open class AutostyleCheckTask @Inject constructor(
 
     private fun Project.intProperty(name: String) = stringProperty(name)?.toInt()
 
+    private val projectDirectory = layout.projectDirectory.asFile
+
     @TaskAction
     fun run() {
         val sb = StringBuilder()
         sb.append("The following files have format violations:\n")
+        val projectDir = projectDirectory
         val writer = DiffMessageFormatter(
-            project.projectDir,
+            projectDir,
             sb,
             maxCheckMessageLines = maxCheckMessageLines.get(),
             maxFilesToList = maxFilesToList.get(),
             minLinesPerFile = minLinesPerFile.get()
         )
-        val projectDir = project.projectDir
         val encoding = Charset.forName(encoding.get())
-        project.fileTree(inputDirectory).visit {
+        inputDirectory.asFileTree.visit {
             if (!isDirectory) {
                 writer.addDiff(projectDir.resolve(path), file, encoding)
             }
@@ -35,11 +35,20 @@ open class AutostyleExtension @Inject constructor(
         const val PROCESS = "Process"
         const val CHECK = "Check"
         const val APPLY = "Apply"
+        const val AGGREGATE = "Aggregate"
     }
     internal val objects: ObjectFactory = project.objects
 
     internal val providers = project.providers
 
+    /**
+     * Formats the files of all the projects in a single root task per format, see [AutostyleAggregateTask].
+     * It is enabled with `autostyle.aggregate=true` Gradle property, and the root project must apply the plugin,
+     * since it registers the aggregate tasks.
+     */
+    internal val aggregate = providers.gradleProperty("autostyle.aggregate").orNull?.toBoolean() == true &&
+        (project == project.rootProject || project.rootProject.plugins.hasPlugin(AutostylePlugin::class.java))
+
     /** Line endings (if any).  */
     var lineEndings = LineEnding.GIT_ATTRIBUTES
 
@@ -62,22 +71,32 @@ open class AutostyleExtension @Inject constructor(
         setEncoding(charset)
     }
 
+    private fun taskPrefix(formatName: String) =
+        EXTENSION + formatName.replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
+
     private val fmts = project.container<BaseFormatExtension>().apply {
         whenObjectAdded {
-            val prefix = EXTENSION + name.replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
+            val prefix = taskPrefix(name)
             val processTask = project.tasks.register<AutostyleTask>(prefix + PROCESS) {
                 this@whenObjectAdded.configureTask(this)
             }
+            // The root project registers the aggregate task, see AutostylePlugin
+            val aggregateTask = if (aggregate) prefix + AGGREGATE else null
+            val formattedDirectory = aggregateTask?.let {
+                project.layout.buildDirectory.dir("autostyle/$it/formatted")
+            } ?: processTask.flatMap { it.outputDirectory }
             val applyTask = project.tasks.register<AutostyleApplyTask>(prefix + APPLY) {
-                inputDirectory.set(processTask.flatMap { it.outputDirectory })
+                inputDirectory.set(formattedDirectory)
+                aggregateTask?.let { dependsOn(":$it") }
             }
             project.tasks.register<AutostyleCheckTask>(prefix + CHECK) {
-                inputDirectory.set(processTask.flatMap { it.outputDirectory })
+                inputDirectory.set(formattedDirectory)
+                aggregateTask?.let { dependsOn(":$it") }
                 mustRunAfter(applyTask)
             }
         }
         whenObjectRemoved {
-            val prefix = EXTENSION + name.replaceFirstChar { if (it.isLowerCase()) it.titlecase(Locale.getDefault()) else it.toString() }
+            val prefix = taskPrefix(name)
             val tasks = project.tasks
             tasks.remove(tasks.findByName(prefix + PROCESS))
             tasks.remove(tasks.findByName(prefix + CHECK))
@@ -155,6 +174,25 @@ open class AutostyleExtension @Inject constructor(
         action.execute(getOrCreate(name))
     }
 
+    private val aggregateUnits = mutableMapOf<String, AggregateFormatUnit>()
+
+    /**
+     * Returns the files of this project for the aggregate task [taskName] of the root project,
+     * or `null` if the project has no such format.
+     * The unit is created when the root task queries it, so the root project does not configure this project.
+     */
+    internal fun aggregateUnit(taskName: String): AggregateFormatUnit? {
+        val format = fmts.find { taskPrefix(it.name) + AGGREGATE == taskName } ?: return null
+        return aggregateUnits.getOrPut(taskName) {
+            val buildDirectory = project.layout.buildDirectory
+            objects.newInstance<AggregateFormatUnit>(project.path, project.projectDir).apply {
+                format.configureTask(this)
+                outputDirectory.set(buildDirectory.dir("autostyle/$taskName/formatted"))
+                divergingDirectory.set(buildDirectory.dir("autostyle/$taskName/diverging"))
+            }
+        }
+    }
+
     private inline fun <reified T : BaseFormatExtension> getOrCreate(
         name: String
     ): T = fmts.findByName(name)?.let { it as T }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.Formatter
+import com.github.autostyle.FormatterStep
+import com.github.autostyle.LineEnding
+import com.github.autostyle.SkipPolicy
+import com.github.autostyle.gradle.ext.gradleGe74
+import com.github.autostyle.gradle.ext.notCompatibleWithConfigurationCacheIfSupported
+import org.gradle.api.Task
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.provider.ListProperty
+import org.gradle.api.provider.Property
+import java.io.File
+import java.nio.charset.Charset
+import java.time.Duration
+
+/**
+ * The formatting settings that [BaseFormatExtension] configures.
+ * [AutostyleTask] formats the files of a single project, and [AggregateFormatUnit] describes
+ * the files of a single project for [AutostyleAggregateTask].
+ */
+interface AutostyleFormatSpec {
+    val encoding: Property<String>
+    val lineEndingsPolicy: Property<LineEnding.Policy>
+    val steps: ListProperty<FormatterStep>
+    val skipPolicy: Property<SkipPolicy>
+    val stepTimeout: Property<Duration>
+    val sourceFiles: ConfigurableFileCollection
+}
+
+internal fun AutostyleFormatSpec.createFormatter(rootDir: File): Formatter =
+    Formatter.builder()
+        .lineEndingsPolicy(lineEndingsPolicy.get())
+        .encoding(Charset.forName(encoding.get()))
+        .rootDir(rootDir.toPath())
+        .steps(steps.get())
+        .skipPolicy(skipPolicy.get())
+        .stepTimeout(stepTimeout.orNull)
+        .build()
+
+/**
+ * The deserialized copies of the steps that are not [portable][FormatterStep.isPortable] can't format files,
+ * so the task is marked as not compatible with the configuration cache.
+ * The steps are created lazily, so they are checked when the task graph is ready, before Gradle stores the cache entry.
+ */
+internal fun Task.notCompatibleWithConfigurationCacheUnlessPortable(steps: () -> List<FormatterStep>) {
+    if (!gradleGe74) {
+        return
+    }
+    val task = this
+    project.gradle.taskGraph.whenReady {
+        if (!hasTask(task)) {
+            return@whenReady
+        }
+        val notPortable = steps().filterNot { it.isPortable }.map { it.name }.distinct()
+        if (notPortable.isNotEmpty()) {
+            task.notCompatibleWithConfigurationCacheIfSupported(
+                "Autostyle steps can't be serialized: ${notPortable.joinToString()}"
+            )
+        }
+    }
+}
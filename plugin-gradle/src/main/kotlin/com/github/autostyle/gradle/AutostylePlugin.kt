@@ -15,15 +15,17 @@
  */
 package com.github.autostyle.gradle
 
-import com.github.autostyle.AutostyleCache
+import com.github.autostyle.FileDigestCache
+import com.github.autostyle.gradle.ext.provisionerCacheService
 import org.gradle.api.Plugin
 import org.gradle.api.Project
 import org.gradle.api.plugins.BasePlugin
 import org.gradle.api.plugins.JavaBasePlugin
-import org.gradle.kotlin.dsl.extra
+import org.gradle.api.provider.Provider
+import org.gradle.kotlin.dsl.findByType
+import org.gradle.kotlin.dsl.register
 import org.gradle.kotlin.dsl.withType
-import java.io.File
-import java.util.*
+import java.time.Duration
 
 class AutostylePlugin : Plugin<Project> {
     companion object {
@@ -33,30 +35,14 @@ class AutostylePlugin : Plugin<Project> {
         private const val APPLY_DESCRIPTION =
             "Applies code formatting steps to sourcecode in-place."
         private const val FILES_PROPERTY = "autostyleFiles"
-        internal const val PROJECT_DIR_MAP = "_autostyleProjectDirMap_"
     }
 
     override fun apply(project: Project) {
         project.configurePlugin()
-        project.rootProject.installProjectPathsExtra()
-    }
-
-    private fun Project.installProjectPathsExtra() {
         // When Autostyle rule (e.g. **/*.md) is declared for a project,
         // it should not descend to subprojects by default.
         // So we want to exclude all the folders that represent project dir and build dirs of the subproject
-        if (extra.has(PROJECT_DIR_MAP)) {
-            return
-        }
-        extra[PROJECT_DIR_MAP] = lazy {
-            allprojects
-                .asSequence()
-                .flatMap { sequenceOf(it.projectDir, it.layout.buildDirectory.get().asFile) }
-                .plus(File(rootDir, "buildSrc"))
-                .plus(File(rootDir, ".gradle"))
-                .plus(File(rootDir, ".idea"))
-                .mapTo(TreeSet()) { it.absolutePath + File.separatorChar }
-        }
+        ProjectDirectoryIndex.install(project.rootProject)
     }
 
     private fun Project.configurePlugin() {
@@ -79,8 +65,51 @@ class AutostylePlugin : Plugin<Project> {
             dependsOn(tasks.withType<AutostyleApplyTask>())
         }
 
-        gradle.buildFinished {
-            AutostyleCache.clear()
+        val cacheService = gradle.sharedServices.registerIfAbsent(
+            "autostyleCache",
+            AutostyleCacheService::class.java
+        ) {
+            parameters.maxUnusedClassLoaders.set(
+                providers.gradleProperty("autostyle.cache.maxUnusedClassLoaders")
+                    .map { it.toInt() }
+                    .orElse(16)
+            )
+            parameters.idleTimeout.set(
+                providers.gradleProperty("autostyle.cache.idleTimeoutMinutes")
+                    .map { Duration.ofMinutes(it.toLong()) }
+                    .orElse(Duration.ofMinutes(10))
+            )
+            if (providers.gradleProperty("autostyle.cache.persistFileDigests").orNull?.toBoolean() != false) {
+                val fileDigests = gradle.gradleUserHomeDir.resolve("caches/autostyle/file-digests.bin")
+                parameters.fileDigests.set(fileDigests)
+                // The memo is loaded on the first use, before the steps are fingerprinted
+                FileDigestCache.setStore(fileDigests)
+            }
+        }
+        val workerIsolation = providers.gradleProperty("autostyle.worker.isolation")
+            .map { WorkerIsolation.valueOf(it.uppercase()) }
+        val workerMaxHeapSize = providers.gradleProperty("autostyle.worker.maxHeapSize")
+        val warmUp = providers.gradleProperty("autostyle.warmUp").map { it.toBoolean() }
+        val warmUpRunSample = providers.gradleProperty("autostyle.warmUp.runSample").map { it.toBoolean() }
+        val classDataSharingDir =
+            if (providers.gradleProperty("autostyle.worker.classDataSharing").orNull?.toBoolean() == true) {
+                layout.projectDirectory.dir(gradle.gradleUserHomeDir.resolve("caches/autostyle/cds").absolutePath)
+            } else {
+                null
+            }
+        if (extension.aggregate && this == rootProject) {
+            registerAggregateTasks(cacheService)
+        }
+        val provisionerCache = gradle.provisionerCacheService()
+        tasks.withType<AutostyleTask>().configureEach {
+            usesService(cacheService)
+            usesService(provisionerCache)
+            this.cacheService.set(cacheService)
+            isolation.convention(workerIsolation.orElse(WorkerIsolation.NONE))
+            this.workerMaxHeapSize.convention(workerMaxHeapSize)
+            classDataSharingDir?.let { classDataSharingDirectory.convention(it) }
+            this.warmUp.convention(warmUp.orElse(false))
+            this.warmUpRunSample.convention(warmUpRunSample.orElse(false))
         }
         afterEvaluate {
             // Add our check task as a dependency on the global check task
@@ -93,4 +122,29 @@ class AutostylePlugin : Plugin<Project> {
             }
         }
     }
+
+    /**
+     * Registers `autostyle<Format>Aggregate` tasks on demand, when the `autostyle*Check` and `autostyle*Apply`
+     * tasks of the projects refer to them. The task collects the units of the projects with the same format
+     * when it is realized, so the projects do not configure the root project.
+     */
+    private fun Project.registerAggregateTasks(cacheService: Provider<AutostyleCacheService>) {
+        tasks.addRule("Pattern: ${AutostyleExtension.EXTENSION}<Format>${AutostyleExtension.AGGREGATE}: formats the files of all the projects") {
+            val taskName = this
+            if (taskName.length <= AutostyleExtension.EXTENSION.length + AutostyleExtension.AGGREGATE.length ||
+                !taskName.startsWith(AutostyleExtension.EXTENSION) || !taskName.endsWith(AutostyleExtension.AGGREGATE)
+            ) {
+                return@addRule
+            }
+            val allprojects = allprojects
+            tasks.register<AutostyleAggregateTask>(taskName) {
+                usesService(cacheService)
+                usesService(gradle.provisionerCacheService())
+                this.cacheService.set(cacheService)
+                units.set(providers.provider {
+                    allprojects.mapNotNull { it.extensions.findByType<AutostyleExtension>()?.aggregateUnit(taskName) }
+                })
+            }
+        }
+    }
 }
@@ -17,24 +17,32 @@ package com.github.autostyle.gradle
 
 import com.github.autostyle.*
 import com.github.autostyle.gradle.ext.conv
+import com.github.autostyle.serialization.deserialize
+import com.github.autostyle.serialization.serialize
 import org.gradle.api.DefaultTask
-import org.gradle.api.GradleException
 import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.FileSystemOperations
 import org.gradle.api.file.FileType
+import org.gradle.api.file.ProjectLayout
 import org.gradle.api.model.ObjectFactory
+import org.gradle.api.provider.Provider
 import org.gradle.api.tasks.*
 import org.gradle.kotlin.dsl.listProperty
 import org.gradle.kotlin.dsl.property
 import org.gradle.work.ChangeType
 import org.gradle.work.InputChanges
+import org.gradle.workers.WorkerExecutor
 import java.io.File
 import java.nio.charset.Charset
+import java.time.Duration
 import javax.inject.Inject
 
 @CacheableTask
 abstract class AutostyleTask @Inject constructor(
-    objects: ObjectFactory
-) : DefaultTask() {
+    objects: ObjectFactory,
+    layout: ProjectLayout,
+    private val fileSystemOperations: FileSystemOperations
+) : DefaultTask(), AutostyleFormatSpec {
     init {
         if (System.getenv("JITPACK")?.toBoolean() == true) {
             // It makes no sense to verify code style on JitPack builds
@@ -44,59 +52,115 @@ abstract class AutostyleTask @Inject constructor(
 
     // set by AutostyleExtension, but possibly overridden by FormatExtension
     @get:Input
-    val encoding = objects.property<String>().conv("UTF-8")
+    override val encoding = objects.property<String>().conv("UTF-8")
 
     @get:Input
-    val lineEndingsPolicy = objects.property<LineEnding.Policy>()
+    override val lineEndingsPolicy = objects.property<LineEnding.Policy>()
         .conv(LineEnding.UNIX.createPolicy())
 
+    /**
+     * The steps are tracked via [stepsFingerprint], so Gradle does not serialize
+     * every step on each up-to-date check.
+     */
+    @get:Internal
+    override val steps = objects.listProperty<FormatterStep>()
+
+    @get:Input
+    val stepsFingerprint: Provider<String> = steps.map { StateHasher.fingerprint(it) }
+
+    init {
+        notCompatibleWithConfigurationCacheUnlessPortable { steps.get() }
+    }
+
     @get:Input
-    val steps = objects.listProperty<FormatterStep>()
+    override val skipPolicy = objects.property<SkipPolicy>().conv(SkipPolicy.NONE)
+
+    /**
+     * Limits the time a single step can spend on a single file.
+     * It does not affect the formatting result, so it is not an input.
+     */
+    @get:Internal
+    override val stepTimeout = objects.property<Duration>()
+
+    /** Keeps the formatter classloaders between builds, see [AutostyleCacheService]. */
+    @get:Internal
+    val cacheService = objects.property<AutostyleCacheService>()
 
     @get:InputFiles
     @get:SkipWhenEmpty
     @get:IgnoreEmptyDirectories
     @get:PathSensitive(PathSensitivity.RELATIVE)
-    val sourceFiles: ConfigurableFileCollection = project.files()
+    override val sourceFiles: ConfigurableFileCollection = objects.fileCollection()
 
     fun addStep(step: FormatterStep) = steps.add(step)
 
     @OutputDirectory
     val outputDirectory = objects.directoryProperty()
-        .convention(project.layout.buildDirectory.dir("autostyle/$name/formatted"))
+        .convention(layout.buildDirectory.dir("autostyle/$name/formatted"))
 
     @OutputDirectory
     val divergingDirectory = objects.directoryProperty()
-        .convention(project.layout.buildDirectory.dir("autostyle/$name/diverging"))
+        .convention(layout.buildDirectory.dir("autostyle/$name/diverging"))
+
+    /**
+     * Formats the files in Gradle workers unless it is [WorkerIsolation.NONE].
+     * The workers are used only when all the steps are [portable][FormatterStep.isPortable].
+     * It does not affect the formatting result, so it is not an input.
+     */
+    @get:Internal
+    val isolation = objects.property<WorkerIsolation>().conv(WorkerIsolation.NONE)
+
+    /** The heap size of the worker processes for [WorkerIsolation.PROCESS], e.g. `512m`. */
+    @get:Internal
+    val workerMaxHeapSize = objects.property<String>()
+
+    /** Keeps [ClassDataSharing] archives for the worker processes of [WorkerIsolation.PROCESS]. */
+    @get:Internal
+    val classDataSharingDirectory = objects.directoryProperty()
+
+    /**
+     * Creates the formatters of all the steps concurrently when the task starts formatting the files,
+     * instead of creating them one by one on the first file, see [FormatterWarmUp].
+     * It does not affect the formatting result, so it is not an input.
+     */
+    @get:Internal
+    val warmUp = objects.property<Boolean>().conv(false)
+
+    /** Formats a tiny sample during the [warmUp], so the formatting code is loaded as well. */
+    @get:Internal
+    val warmUpRunSample = objects.property<Boolean>().conv(false)
+
+    @get:Inject
+    protected abstract val workerExecutor: WorkerExecutor
+
+    // The directories are captured at configuration time, so the task does not use Project at execution time
+    private val projectDirectory = layout.projectDirectory.asFile
 
-    private val projectDirectory = project.projectDir
+    private val rootDirectory = project.rootDir
+
+    private val maxWorkerCount = project.gradle.startParameter.maxWorkerCount
 
     @get:Internal
     val formatter: Formatter
-        get() =
-            Formatter.builder()
-                .lineEndingsPolicy(lineEndingsPolicy.get())
-                .encoding(Charset.forName(encoding.get()))
-                .rootDir(project.rootDir.toPath())
-                .steps(steps.get())
-                .build()
+        get() = createFormatter(rootDirectory)
 
     @TaskAction
     fun run(inputChanges: InputChanges) {
+        // Configures the classloader cache before the formatters are created
+        cacheService.orNull
         val outputDir = outputDirectory.get().asFile
         if (!inputChanges.isIncremental) {
-            project.delete(outputDir)
+            fileSystemOperations.delete { delete(outputDir) }
         }
-        project.mkdir(outputDir)
+        outputDir.mkdirs()
         val divergingDir = divergingDirectory.get().asFile
-        project.delete(divergingDir)
-        project.mkdir(divergingDir)
+        fileSystemOperations.delete { delete(divergingDir) }
+        divergingDir.mkdirs()
 
         val filesToCheck = mutableListOf<File>()
         inputChanges.getFileChanges(sourceFiles).forEach {
             if (it.changeType == ChangeType.REMOVED) {
-                val outFile = outputDir.resolve(it.file.relativeTo(projectDirectory))
-                project.delete(outFile)
+                outputDir.resolve(it.file.relativeTo(projectDirectory)).delete()
             }
 
             if (it.changeType != ChangeType.REMOVED && it.fileType == FileType.FILE) {
@@ -104,61 +168,79 @@ abstract class AutostyleTask @Inject constructor(
             }
         }
 
-        formatter.use { formatFiles(it, filesToCheck) }
-    }
-
-    private fun formatFiles(formatter: Formatter, filesToCheck: Collection<File>) {
-        val outputDir = outputDirectory.get().asFile
-        val divergingDir = divergingDirectory.get().asFile
-        val convergenceAnalyzer = ConvergenceAnalyzer(formatter)
-        val diverges = mutableListOf<String>()
-        val cycles = mutableListOf<String>()
-        for (file in filesToCheck) {
-            logger.debug("Applying format to {}", file)
-            val result = convergenceAnalyzer.analyze(file)
-            val relativeFile = file.relativeTo(projectDirectory)
-            val outFile = outputDir.resolve(relativeFile)
-            outFile.parentFile.mkdirs()
-            when (result) {
-                is ConvergenceResult.Clean ->
-                    project.delete(outFile)
-                is ConvergenceResult.Convergence ->
-                    outFile.writeText(result.formatted, formatter.encoding)
-                is ConvergenceResult.Cycle -> {
-                    storeCycle(formatter, divergingDir, relativeFile, result.cycle)
-                    cycles += relativeFile.toString()
-                }
-                is ConvergenceResult.Divergence -> {
-                    storeCycle(formatter, divergingDir, relativeFile, result.cycle)
-                    diverges += relativeFile.toString()
-                }
+        val isolation = isolation.get()
+        val summary = if (isolation == WorkerIsolation.NONE || filesToCheck.isEmpty() || !stepsArePortable()) {
+            if (warmUp.get() && filesToCheck.isNotEmpty()) {
+                // The formatters are returned to the registry, and the steps pick them up on the first file
+                FormatterWarmUp.start(steps.get(), warmUpRunSample.get())
             }
+            formatter.use { it.formatFiles(filesToCheck, projectDirectory, outputDir, divergingDir, logger) }
+        } else {
+            formatInWorkers(isolation, filesToCheck)
         }
-        if (diverges.isEmpty() && cycles.isEmpty()) {
-            return
+        summary.report(logger)
+    }
+
+    private fun stepsArePortable(): Boolean {
+        val notPortable = steps.get().filterNot { it.isPortable }
+        if (notPortable.isEmpty()) {
+            return true
         }
-        throw GradleException(
-            ("Formatting ${
-                cycles.joinToString(prefix = "cycles for ", postfix = ", ")
-                    .removeSuffix("cycles for , ")
-            }" +
-                    diverges.joinToString(prefix = "diverges for ").removeSuffix("diverges for "))
-                .removeSuffix(", ")
+        logger.info(
+            "{} formats the files without workers since the steps can't be serialized: {}",
+            path, notPortable.joinToString { it.name }
         )
+        return false
     }
 
-    private fun storeCycle(
-        formatter: Formatter,
-        divergingDir: File,
-        relativeFile: File,
-        cycle: List<String>
-    ) {
-        val outFile = divergingDir.resolve(relativeFile)
-        project.mkdir(outFile.parentFile)
-        val outPath = outFile.absolutePath
-        for ((index, value) in cycle.withIndex()) {
-            File(outPath + "." + index.toString().padStart(2, '0'))
-                .writeText(value, formatter.encoding)
+    private fun formatInWorkers(isolation: WorkerIsolation, filesToCheck: List<File>): FormatSummary {
+        val workDir = temporaryDir
+        workDir.listFiles()?.forEach { it.delete() }
+        val formatterFile = workDir.resolve("formatter.bin")
+        formatterFile.serialize(
+            Formatter.builder()
+                // The line endings might depend on the environment (e.g. git configuration), so they are resolved here
+                .lineEndingsPolicy(LineEnding.resolve(lineEndingsPolicy.get(), filesToCheck))
+                .encoding(Charset.forName(encoding.get()))
+                .rootDir(rootDirectory.toPath())
+                .steps(steps.get())
+                .skipPolicy(skipPolicy.get())
+                .build()
+        )
+        val queue = when (isolation) {
+            WorkerIsolation.CLASSLOADER -> workerExecutor.classLoaderIsolation()
+            else -> workerExecutor.processIsolation {
+                forkOptions {
+                    workerMaxHeapSize.orNull?.let { maxHeapSize = it }
+                    classDataSharingDirectory.orNull?.let {
+                        jvmArgs(ClassDataSharing.jvmArgs(it.asFile, workerClasspathId()))
+                    }
+                }
+            }
         }
+        val timeout = stepTimeout.orNull
+        val outputDir = outputDirectory
+        val divergingDir = divergingDirectory
+        val batchSize = (filesToCheck.size + maxWorkerCount - 1) / maxWorkerCount
+        val summaries = filesToCheck.chunked(batchSize).mapIndexed { index, batch ->
+            val summaryFile = workDir.resolve("summary-$index.bin")
+            queue.submit(FormatFilesWork::class.java) {
+                this.formatter.set(formatterFile)
+                stepTimeout.set(timeout)
+                files.from(batch)
+                projectDirectory.set(this@AutostyleTask.projectDirectory)
+                outputDirectory.set(outputDir)
+                divergingDirectory.set(divergingDir)
+                summary.set(summaryFile)
+            }
+            summaryFile
+        }
+        queue.await()
+        return summaries.map { it.deserialize<FormatSummary>() }.reduce(FormatSummary::plus)
     }
+
+    /** The worker processes load the plugin jars, so their locations identify the classpath. */
+    private fun workerClasspathId() =
+        listOf(Formatter::class.java, AutostyleTask::class.java)
+            .joinToString(File.pathSeparator) { it.protectionDomain.codeSource.location.toString() }
 }
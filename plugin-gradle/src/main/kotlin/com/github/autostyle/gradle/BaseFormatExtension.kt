@@ -18,6 +18,7 @@ package com.github.autostyle.gradle
 import com.github.autostyle.FormatterFunc
 import com.github.autostyle.FormatterStep
 import com.github.autostyle.LineEnding
+import com.github.autostyle.SkipPolicy
 import com.github.autostyle.generic.*
 import com.github.autostyle.gradle.ext.conv
 import com.github.autostyle.npm.PrettierFormatterStep
@@ -25,13 +26,17 @@ import groovy.lang.Closure
 import org.gradle.api.Action
 import org.gradle.api.Project
 import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.provider.Provider
+import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.util.PatternFilterable
 import org.gradle.api.tasks.util.PatternSet
-import org.gradle.kotlin.dsl.extra
 import org.gradle.kotlin.dsl.listProperty
 import org.gradle.kotlin.dsl.property
 import java.io.File
+import java.io.Serializable
 import java.nio.charset.Charset
+import java.time.Duration
 import java.util.*
 import javax.inject.Inject
 
@@ -67,8 +72,34 @@ open class BaseFormatExtension @Inject constructor(
         this.encoding.set(Charset.forName(encoding))
     }
 
+    /**
+     * Skips files with NUL characters or with content that is invalid in the configured encoding.
+     * It is disabled by default, so `autostyleCheck` keeps reporting such files.
+     */
+    val skipBinaryFiles = root.objects.property<Boolean>().conv(false)
+
+    /** Skips files larger than the given number of bytes, `0` means no limit. */
+    val maxFileSize = root.objects.property<Long>().conv(0L)
+
+    /** Skips files that contain any of the markers within their first few kilobytes. */
+    val generatedMarkers = root.objects.listProperty<String>()
+
+    /**
+     * Skips generated files, so they are neither formatted nor verified.
+     * By default, `@Generated` and `// Code generated` markers are recognized.
+     */
+    fun skipGenerated(vararg markers: String) {
+        generatedMarkers.set(if (markers.isEmpty()) SkipPolicy.DEFAULT_GENERATED_MARKERS else markers.asList())
+    }
+
+    /**
+     * Limits the time a single step can spend on a single file, so a pathological input
+     * fails the build instead of stalling it. No limit by default.
+     */
+    val stepTimeout = root.objects.property<Duration>()
+
     protected val target = root.objects.listProperty<Any>()
-        .conv(root.providers.provider { listOf(project.projectDir) })
+        .conv(listOf(root.project.projectDir))
 
     /**
      * Sets which files should be formatted.
@@ -77,9 +108,20 @@ open class BaseFormatExtension @Inject constructor(
         target.set(targets.asList())
     }
 
-    private val steps = mutableListOf<FormatterStep>()
+    private val steps = mutableListOf<Provider<FormatterStep>>()
 
     fun addStep(step: FormatterStep) {
+        steps += root.providers.provider { step }
+    }
+
+    /**
+     * Adds a step that is created only when the task input is queried, so the builds that do not
+     * execute Autostyle tasks do not resolve the formatter dependencies.
+     *
+     * The provider is resolved once per task. The resolved step should be [portable][FormatterStep.isPortable],
+     * otherwise the task is not compatible with the configuration cache.
+     */
+    fun addStep(step: Provider<FormatterStep>) {
         steps += step
     }
 
@@ -170,7 +212,7 @@ open class BaseFormatExtension @Inject constructor(
                 it.copyright.set(copyright)
             }
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
@@ -193,75 +235,162 @@ open class BaseFormatExtension @Inject constructor(
     ) {
         createPrettierConfig(devDependencies).also {
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
     protected open fun createPrettierConfig(devDependencies: Map<String, String>) =
         PrettierConfig(devDependencies, root.objects, root.project)
 
-    @Suppress("UNCHECKED_CAST")
-    val dirsToExclude: NavigableSet<String> get() =
-        (project.rootProject.extra[AutostylePlugin.PROJECT_DIR_MAP] as Lazy<NavigableSet<String>>).value
+    /** The project and build directories nested in the current project, see [excludeSubprojects]. */
+    val dirsToExclude: NavigableSet<String>
+        get() {
+            val currentDir = project.projectDir.absolutePath + File.separatorChar
+            return TreeSet(ProjectDirectoryIndex.of(project).nestedIn(currentDir)).apply {
+                // The index might have been built before the current project configured its build directory
+                add(project.layout.buildDirectory.get().asFile.absolutePath + File.separatorChar)
+            }
+        }
 
-    /** Sets up a format task according to the values in this extension.  */
-    internal open fun configureTask(task: AutostyleTask) {
+    /** Sets up a format task (or a project of the aggregated task) according to the values in this extension.  */
+    internal open fun configureTask(task: AutostyleFormatSpec) {
         task.encoding.set(encoding.map { it.name() })
-        if (excludeSubprojects.get()) {
-            excludeSubprojects()
+        task.stepTimeout.set(stepTimeout)
+        task.skipPolicy.set(root.providers.provider {
+            SkipPolicy.builder()
+                .skipBinary(skipBinaryFiles.get())
+                .maxFileSize(maxFileSize.get())
+                .generatedMarkers(generatedMarkers.get())
+                .build()
+        })
+        // When Autostyle rule (e.g. **/*.md) is declared for a project,
+        // it should not descend to subprojects by default.
+        // The directories of the other projects are looked up when the files are queried,
+        // so the build directories configured by the projects evaluated after this one are excluded as well
+        val currentDir = root.project.projectDir.absolutePath + File.separatorChar
+        val excludedDirs = root.providers.provider {
+            if (excludeSubprojects.get()) ExcludeDirectories(currentDir, dirsToExclude) else null
         }
+        // The lambdas below do not capture Project, so the task is compatible with the configuration cache
+        val objects = root.objects
+        val rootDir = project.rootDir
+        val projectDir = project.projectDir
+        val filter = filter
         task.sourceFiles.from(target.map { targetRoot ->
+            val patterns = excludedDirs.orNull?.let { PatternSet().copyFrom(filter).exclude(it) } ?: filter
             targetRoot.map {
                 when (it) {
                     is FileTree -> it
                     is File ->
                         if (it.isDirectory) {
-                            project.fileTree(it)
+                            objects.fileTree().from(it)
                         } else {
-                            project.files(it).asFileTree
+                            objects.fileCollection().from(it).asFileTree
                         }
                     is String ->
                         when {
-                            File(it).isDirectory -> project.fileTree(it)
+                            File(it).isDirectory -> objects.fileTree().from(it)
                             it.any { c -> c == '*' || c == '?' } -> {
                                 // Ant-style glob (e.g. "**/*.md"): resolve as an include pattern
                                 // relative to the project directory. Project.files() does not
                                 // expand globs, so a glob target would otherwise silently match
                                 // nothing.
-                                val pattern = it
-                                project.fileTree(project.projectDir) { include(pattern) }
+                                objects.fileTree().from(projectDir).include(it)
                             }
-                            else -> project.files(it).asFileTree
+                            else -> objects.fileCollection().from(it).asFileTree
                         }
-                    else -> project.fileTree(it)
-                }.matching(filter)
+                    else -> objects.fileTree().from(it)
+                }.matching(patterns)
             }
         })
-        task.steps.set(steps)
+        val stepProviders = steps
+        task.steps.set(root.providers.provider { stepProviders.mapNotNull { it.orNull } })
+        // The portability check and the task action should see the same step instances
+        task.steps.finalizeValueOnRead()
+        val sourceFiles = task.sourceFiles
         task.lineEndingsPolicy.set(lineEndings.map {
-            it.createPolicy(project.rootDir, project.projectDir) { project.files(task.sourceFiles) }
+            it.createPolicy(rootDir, projectDir) { sourceFiles }
         })
     }
+}
 
-    private fun excludeSubprojects() {
-        // When Autostyle rule (e.g. **/*.md) is declared for a project,
-        // it should not descend to subprojects by default.
-        // So we want to exclude all the folders that represent project dir and build dirs of the subproject
-        val sep = File.separatorChar
-        val currentDir = root.project.projectDir.absolutePath + sep
-        val offset = currentDir.length
-        val dirs = dirsToExclude
-        filter.exclude { fileTreeElement ->
-            val path = fileTreeElement.file.absolutePath
-
-            path.length > currentDir.length && path[currentDir.length - 1] == sep &&
-                    path.startsWith(currentDir) &&
-                    dirs.subSet(currentDir, false, "$path$sep", true)
-                        .any {
-                            path.regionMatches(offset, it, offset, it.length - offset - 1) &&
-                                    (path.length == it.length - 1 ||
-                                            path.length > it.length && path[it.length - 1] == sep)
-                        }
+/**
+ * Excludes the nested [dirs] of [currentDir].
+ * The directories are compiled into a trie of path segments, so the check costs one lookup per
+ * segment regardless of the number of subprojects. Gradle does not descend into excluded directories,
+ * so the files are checked only when they are located at the root of the tree: deeper files
+ * have already passed the check for their parent directories.
+ * It is a class rather than a lambda, so the configuration cache can serialize it.
+ */
+private class ExcludeDirectories(
+    private val currentDir: String,
+    dirs: Iterable<String>
+) : Spec<FileTreeElement>, Serializable {
+    private val trie = DirectoryTrie()
+
+    init {
+        for (dir in dirs) {
+            if (dir.length > currentDir.length && dir.startsWith(currentDir)) {
+                trie.add(dir, currentDir.length)
+            }
         }
     }
+
+    override fun isSatisfiedBy(fileTreeElement: FileTreeElement): Boolean {
+        if (trie.isEmpty() ||
+            !fileTreeElement.isDirectory && fileTreeElement.relativePath.segments.size > 1
+        ) {
+            return false
+        }
+        val path = fileTreeElement.file.absolutePath
+        return path.length >= currentDir.length && path.startsWith(currentDir) &&
+                trie.containsPrefixOf(path, currentDir.length)
+    }
+
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+private class DirectoryTrie : Serializable {
+    private var children: MutableMap<String, DirectoryTrie>? = null
+    private var terminal = false
+
+    fun isEmpty() = children == null
+
+    /** Adds [path] (it ends with a separator) starting at [offset]. */
+    fun add(path: String, offset: Int) {
+        var node = this
+        var start = offset
+        while (start < path.length) {
+            val end = path.indexOf(File.separatorChar, start).let { if (it == -1) path.length else it }
+            if (end > start) {
+                val children = node.children ?: mutableMapOf<String, DirectoryTrie>().also { node.children = it }
+                node = children.getOrPut(path.substring(start, end)) { DirectoryTrie() }
+            }
+            start = end + 1
+        }
+        node.terminal = true
+    }
+
+    /** Returns true if [path] starting at [offset] is one of the added directories or is nested in one of them. */
+    fun containsPrefixOf(path: String, offset: Int): Boolean {
+        var node = this
+        var start = offset
+        while (start < path.length) {
+            val end = path.indexOf(File.separatorChar, start).let { if (it == -1) path.length else it }
+            if (end > start) {
+                node = node.children?.get(path.substring(start, end)) ?: return false
+                if (node.terminal) {
+                    return true
+                }
+            }
+            start = end + 1
+        }
+        return false
+    }
+
+    companion object {
+        private const val serialVersionUID = 1L
+    }
 }
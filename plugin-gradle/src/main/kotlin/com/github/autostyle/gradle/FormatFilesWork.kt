@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.ConvergenceAnalyzer
+import com.github.autostyle.ConvergenceResult
+import com.github.autostyle.Formatter
+import com.github.autostyle.SkipPolicy
+import com.github.autostyle.serialization.deserialize
+import com.github.autostyle.serialization.serialize
+import org.gradle.api.GradleException
+import org.gradle.api.file.ConfigurableFileCollection
+import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.logging.Logger
+import org.gradle.api.logging.Logging
+import org.gradle.api.provider.Property
+import org.gradle.workers.WorkAction
+import org.gradle.workers.WorkParameters
+import java.io.File
+import java.io.Serializable
+import java.time.Duration
+
+/** The files that do not converge, and the number of skipped files. */
+internal class FormatSummary(
+    val cycles: List<String>,
+    val diverges: List<String>,
+    val skipped: Map<SkipPolicy.Reason, Long>
+) : Serializable {
+    operator fun plus(other: FormatSummary) = FormatSummary(
+        cycles + other.cycles,
+        diverges + other.diverges,
+        (skipped.keys + other.skipped.keys).associateWith { (skipped[it] ?: 0L) + (other.skipped[it] ?: 0L) }
+    )
+
+    companion object {
+        private const val serialVersionUID = 1L
+    }
+}
+
+/** Logs the skipped files, and fails if some of the files do not converge. */
+internal fun FormatSummary.report(logger: Logger) {
+    if (skipped.isNotEmpty()) {
+        logger.info(
+            "Skipped {}",
+            skipped.entries.joinToString { (reason, count) -> "$count ${reason.name.lowercase()}" }
+        )
+    }
+    if (diverges.isEmpty() && cycles.isEmpty()) {
+        return
+    }
+    throw GradleException(
+        ("Formatting ${
+            cycles.joinToString(prefix = "cycles for ", postfix = ", ")
+                .removeSuffix("cycles for , ")
+        }" +
+                diverges.joinToString(prefix = "diverges for ").removeSuffix("diverges for "))
+            .removeSuffix(", ")
+    )
+}
+
+/**
+ * Formats the files and stores the results to [outputDir], and the non-converging results to [divergingDir].
+ */
+internal fun Formatter.formatFiles(
+    files: Iterable<File>,
+    projectDir: File,
+    outputDir: File,
+    divergingDir: File,
+    logger: Logger
+): FormatSummary {
+    val convergenceAnalyzer = ConvergenceAnalyzer(this)
+    val diverges = mutableListOf<String>()
+    val cycles = mutableListOf<String>()
+    for (file in files) {
+        logger.debug("Applying format to {}", file)
+        val result = convergenceAnalyzer.analyze(file)
+        val relativeFile = file.relativeTo(projectDir)
+        val outFile = outputDir.resolve(relativeFile)
+        outFile.parentFile.mkdirs()
+        when (result) {
+            is ConvergenceResult.Clean ->
+                outFile.delete()
+            is ConvergenceResult.Convergence ->
+                outFile.writeText(result.formatted, encoding)
+            is ConvergenceResult.Cycle -> {
+                storeCycle(divergingDir, relativeFile, result.cycle)
+                cycles += relativeFile.toString()
+            }
+            is ConvergenceResult.Divergence -> {
+                storeCycle(divergingDir, relativeFile, result.cycle)
+                diverges += relativeFile.toString()
+            }
+        }
+    }
+    return FormatSummary(cycles, diverges, skippedFiles)
+}
+
+private fun Formatter.storeCycle(
+    divergingDir: File,
+    relativeFile: File,
+    cycle: List<String>
+) {
+    val outFile = divergingDir.resolve(relativeFile)
+    outFile.parentFile.mkdirs()
+    val outPath = outFile.absolutePath
+    for ((index, value) in cycle.withIndex()) {
+        File(outPath + "." + index.toString().padStart(2, '0'))
+            .writeText(value, encoding)
+    }
+}
+
+/**
+ * Formats a part of the files of [AutostyleTask] in a Gradle worker.
+ * The formatter is deserialized from [Parameters.formatter], so all its steps must be
+ * [portable][com.github.autostyle.FormatterStep.isPortable].
+ */
+abstract class FormatFilesWork : WorkAction<FormatFilesWork.Parameters> {
+    interface Parameters : WorkParameters {
+        val formatter: RegularFileProperty
+        val stepTimeout: Property<Duration>
+        val files: ConfigurableFileCollection
+        val projectDirectory: DirectoryProperty
+        val outputDirectory: DirectoryProperty
+        val divergingDirectory: DirectoryProperty
+        val summary: RegularFileProperty
+    }
+
+    override fun execute() {
+        val params = parameters
+        val serialized = params.formatter.get().asFile.deserialize<Formatter>()
+        val formatter = Formatter.builder()
+            .lineEndingsPolicy(serialized.lineEndingsPolicy)
+            .encoding(serialized.encoding)
+            .rootDir(serialized.rootDir)
+            .steps(serialized.steps)
+            .skipPolicy(serialized.skipPolicy)
+            .stepTimeout(params.stepTimeout.orNull)
+            .build()
+        val summary = formatter.use {
+            it.formatFiles(
+                params.files,
+                params.projectDirectory.get().asFile,
+                params.outputDirectory.get().asFile,
+                params.divergingDirectory.get().asFile,
+                Logging.getLogger(FormatFilesWork::class.java)
+            )
+        }
+        params.summary.get().asFile.serialize(summary)
+    }
+}
@@ -28,10 +28,12 @@ open class FreshMarkExtension @Inject constructor(name: String, root: AutostyleE
 
     init {
         filter.include("**/*.md")
-        addStep(FreshMarkStep.create(project.asProvisioner()) {
-            mutableMapOf<String, Any>().also {
-                for (action in propertyActions) {
-                    action.execute(it)
+        addStep(root.providers.provider {
+            FreshMarkStep.create(project.asProvisioner()) {
+                mutableMapOf<String, Any>().also {
+                    for (action in propertyActions) {
+                        action.execute(it)
+                    }
                 }
             }
         })
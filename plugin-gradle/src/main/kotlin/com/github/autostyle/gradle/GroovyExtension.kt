@@ -43,7 +43,7 @@ open class GroovyExtension @Inject constructor(name: String, root: AutostyleExte
         )
     }
 
-    override fun configureTask(task: AutostyleTask) {
+    override fun configureTask(task: AutostyleFormatSpec) {
         // TODO: pass "excludeJava"
         super.configureTask(task)
     }
@@ -51,7 +51,7 @@ open class JavaExtension @Inject constructor(name: String, root: AutostyleExtens
     /** Removes any unused imports.*/
     @JvmOverloads
     fun removeUnusedImports(version: String = GoogleJavaFormatStep.defaultVersion()) {
-        addStep(RemoveUnusedImportsStep.create(project.asProvisioner(), version))
+        addStep(root.providers.provider { RemoveUnusedImportsStep.create(project.asProvisioner(), version) })
     }
 
     fun googleJavaFormat(action: Action<GoogleJavaFormatConfig>) {
@@ -72,7 +72,7 @@ open class JavaExtension @Inject constructor(name: String, root: AutostyleExtens
     ) {
         GoogleJavaFormatConfig(version, project).also {
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
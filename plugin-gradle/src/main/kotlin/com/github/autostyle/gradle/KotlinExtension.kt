@@ -57,7 +57,7 @@ open class KotlinExtension @Inject constructor(name: String, root: AutostyleExte
     ) {
         KotlinFormatConfig(version, root.project, forScript).also {
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import org.gradle.api.Project
+import org.gradle.kotlin.dsl.extra
+import java.io.File
+import java.util.*
+
+/**
+ * Sorted immutable list of the directories that belong to the projects of the build: project directories,
+ * build directories, and a few well-known root directories.
+ * The paths end with [File.separatorChar], so the directories nested in a given one form a contiguous range
+ * that is found with a binary search.
+ *
+ * The index is built on the first query, and it does not evaluate projects:
+ * the build directory is read only for the projects that are already evaluated.
+ * The build directory of a project that is not evaluated yet is the default one,
+ * and it is covered by the project directory.
+ * The index that was queried before all the projects were evaluated is built again after that,
+ * so the custom build directories of the projects evaluated later are indexed as well.
+ */
+internal class ProjectDirectoryIndex private constructor(
+    private val dirs: List<String>
+) {
+    companion object {
+        private const val EXTRA_NAME = "_autostyleProjectDirectoryIndex_"
+
+        fun install(rootProject: Project) {
+            if (rootProject.extra.has(EXTRA_NAME)) {
+                return
+            }
+            rootProject.extra[EXTRA_NAME] = lazy { build(rootProject) }
+            rootProject.gradle.projectsEvaluated {
+                @Suppress("UNCHECKED_CAST")
+                if ((rootProject.extra[EXTRA_NAME] as Lazy<ProjectDirectoryIndex>).isInitialized()) {
+                    rootProject.extra[EXTRA_NAME] = lazy { build(rootProject) }
+                }
+            }
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        fun of(project: Project): ProjectDirectoryIndex =
+            (project.rootProject.extra[EXTRA_NAME] as Lazy<ProjectDirectoryIndex>).value
+
+        private fun build(rootProject: Project): ProjectDirectoryIndex {
+            val dirs = mutableListOf<File>()
+            for (project in rootProject.allprojects) {
+                dirs += project.projectDir
+                if (project.state.executed) {
+                    dirs += project.layout.buildDirectory.get().asFile
+                }
+            }
+            val rootDir = rootProject.rootDir
+            dirs += File(rootDir, "buildSrc")
+            dirs += File(rootDir, ".gradle")
+            dirs += File(rootDir, ".idea")
+            return ProjectDirectoryIndex(
+                dirs.mapTo(TreeSet()) { it.absolutePath + File.separatorChar }.toList()
+            )
+        }
+    }
+
+    /** Returns the indexed directories that are nested in [dir], the path must end with a separator. */
+    fun nestedIn(dir: String): List<String> {
+        val from = Collections.binarySearch(dirs, dir).let { if (it < 0) -it - 1 else it + 1 }
+        var to = from
+        while (to < dirs.size && dirs[to].startsWith(dir)) {
+            to++
+        }
+        return dirs.subList(from, to)
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.ProvisionerCache
+import org.gradle.api.services.BuildService
+import org.gradle.api.services.BuildServiceParameters
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Keeps a [ProvisionerCache] per resolution context for the duration of the build.
+ * The projects might declare different repositories or dependency locking, so the resolved files are shared
+ * only between the projects with the same context.
+ * The resolution strategies that are configured with `configurations.all { ... }` are not a part of the context.
+ */
+abstract class ProvisionerCacheService : BuildService<BuildServiceParameters.None> {
+    companion object {
+        internal const val NAME = "autostyleProvisionerCache"
+    }
+
+    private val caches = ConcurrentHashMap<String, ProvisionerCache>()
+
+    fun cacheFor(resolutionContext: String): ProvisionerCache =
+        caches.computeIfAbsent(resolutionContext) { ProvisionerCache() }
+}
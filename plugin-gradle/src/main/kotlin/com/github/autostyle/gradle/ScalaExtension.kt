@@ -53,7 +53,7 @@ open class ScalaExtension @Inject constructor(name: String, root: AutostyleExten
     ) {
         ScalaFmtConfig(version, project).also {
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
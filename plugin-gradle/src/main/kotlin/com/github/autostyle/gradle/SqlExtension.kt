@@ -31,7 +31,7 @@ open class SqlExtension @Inject constructor(name: String, root: AutostyleExtensi
     fun dbeaver(action: Action<DBeaverSQLFormatterConfig>? = null) {
         DBeaverSQLFormatterConfig(root.project).also {
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
@@ -45,7 +45,7 @@ open class TypescriptExtension @Inject constructor(name: String, root: Autostyle
     ) {
         TypescriptConfig(devDependencies, root.objects, root.project).also {
             action?.execute(it)
-            addStep(it.createStep())
+            addStep(root.providers.provider { it.createStep() })
         }
     }
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+/** Where [AutostyleTask] formats the files. */
+enum class WorkerIsolation {
+    /** Formats the files sequentially on the task thread. */
+    NONE,
+
+    /**
+     * Formats the files in Gradle workers in an isolated classloader of the Gradle daemon,
+     * so a single task uses several threads.
+     */
+    CLASSLOADER,
+
+    /**
+     * Formats the files in Gradle worker processes, so the formatters do not use the heap
+     * of the Gradle daemon.
+     */
+    PROCESS;
+}
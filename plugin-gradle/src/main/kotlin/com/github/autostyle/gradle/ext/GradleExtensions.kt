@@ -16,15 +16,52 @@
 package com.github.autostyle.gradle.ext
 
 import com.github.autostyle.Provisioner
+import com.github.autostyle.gradle.ProvisionerCacheService
 import org.gradle.api.Project
+import org.gradle.api.Task
+import org.gradle.api.artifacts.repositories.FlatDirectoryArtifactRepository
+import org.gradle.api.artifacts.repositories.IvyArtifactRepository
+import org.gradle.api.artifacts.repositories.MavenArtifactRepository
 import org.gradle.api.attributes.Bundling
+import org.gradle.api.invocation.Gradle
 import org.gradle.api.provider.ListProperty
 import org.gradle.api.provider.MapProperty
 import org.gradle.api.provider.Property
 import org.gradle.api.provider.Provider
 import org.gradle.util.GradleVersion
 
-fun Project.asProvisioner() =
+/**
+ * The tasks that resolve the steps should declare [usesService][Task.usesService] for it,
+ * since the lazy steps are created when the task inputs are queried.
+ */
+internal fun Gradle.provisionerCacheService(): Provider<ProvisionerCacheService> =
+    sharedServices.registerIfAbsent(ProvisionerCacheService.NAME, ProvisionerCacheService::class.java) {}
+
+/**
+ * Resolves the formatter dependencies.
+ * The results are shared by the projects with the same resolution context, see [ProvisionerCacheService].
+ */
+fun Project.asProvisioner(): Provisioner =
+    gradle.provisionerCacheService()
+        .get()
+        .cacheFor(resolutionContext())
+        .wrap(resolvingProvisioner())
+
+/**
+ * Describes the settings that affect the resolution of a detached configuration in the project.
+ * Dependency verification is configured for the whole build, so it is not a part of the context.
+ */
+private fun Project.resolutionContext(): String =
+    repositories.joinToString(separator = "\n", postfix = "\n") {
+        when (it) {
+            is MavenArtifactRepository -> "maven:${it.url}:${it.artifactUrls}"
+            is IvyArtifactRepository -> "ivy:${it.url}"
+            is FlatDirectoryArtifactRepository -> "flatDir:${it.dirs}"
+            else -> "${it.javaClass.name}:${it.name}"
+        }
+    } + "locking:" + dependencyLocking.lockMode.orNull
+
+private fun Project.resolvingProvisioner() =
     Provisioner { withTransitives: Boolean, mavenCoords: Collection<String> ->
         try {
             val dependencies = project.dependencies
@@ -49,6 +86,15 @@ fun Project.asProvisioner() =
 
 val gradleGe51 = GradleVersion.current() >= GradleVersion.version("5.1")
 
+val gradleGe74 = GradleVersion.current() >= GradleVersion.version("7.4")
+
+/** Gradle stores no configuration cache entry for the task, the older versions do not have the API. */
+fun Task.notCompatibleWithConfigurationCacheIfSupported(reason: String) {
+    if (gradleGe74) {
+        notCompatibleWithConfigurationCache(reason)
+    }
+}
+
 fun <T : Any> Property<T>.conv(v: T) = if (gradleGe51) convention(v) else apply { set(v) }
 fun <T : Any> Property<T>.conv(v: Provider<out T>) = if (gradleGe51) convention(v) else apply { set(v) }
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.parallel.Execution
+import org.junit.jupiter.api.parallel.ExecutionMode
+
+@Execution(ExecutionMode.SAME_THREAD)
+class AggregateTaskTest : GradleIntegrationTest() {
+    @Test
+    fun formatsAllProjectsInRootTask() {
+        setFile("settings.gradle").toContent(
+            """
+            include 'sub'
+            """.trimIndent()
+        )
+        setFile("gradle.properties").toContent("autostyle.aggregate=true")
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle' apply false
+            }
+            allprojects {
+                apply plugin: 'com.github.autostyle'
+                autostyle {
+                    format 'misc', {
+                        filter.include '**/*.md'
+                        trimTrailingWhitespace()
+                    }
+                }
+            }
+            """.trimIndent()
+        )
+        val rootFile = setFile("README.md").toContent("root  \n")
+        val subFile = setFile("sub/README.md").toContent("sub  \n")
+
+        val check = gradleRunner().withArguments("autostyleCheck").buildAndFail()
+        Assertions.assertNotNull(check.task(":autostyleMiscAggregate"), check.output)
+        Assertions.assertNull(check.task(":sub:autostyleMiscProcess"), check.output)
+
+        gradleRunner().withArguments("autostyleApply").build()
+        Assertions.assertEquals("root\n", rootFile.readText())
+        Assertions.assertEquals("sub\n", subFile.readText())
+
+        gradleRunner().withArguments("autostyleCheck").build()
+    }
+
+    @Test
+    fun formatsProjectsSeparatelyWithoutRootPlugin() {
+        setFile("settings.gradle").toContent(
+            """
+            include 'sub'
+            """.trimIndent()
+        )
+        setFile("gradle.properties").toContent("autostyle.aggregate=true")
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle' apply false
+            }
+            subprojects {
+                apply plugin: 'com.github.autostyle'
+                autostyle {
+                    format 'misc', {
+                        filter.include '**/*.md'
+                        trimTrailingWhitespace()
+                    }
+                }
+            }
+            """.trimIndent()
+        )
+        val subFile = setFile("sub/README.md").toContent("sub  \n")
+
+        val apply = gradleRunner().withArguments("autostyleApply").build()
+        Assertions.assertNotNull(apply.task(":sub:autostyleMiscProcess"), apply.output)
+        Assertions.assertEquals("sub\n", subFile.readText())
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.ResourceHarness
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.parallel.Execution
+import org.junit.jupiter.api.parallel.ExecutionMode
+
+@Execution(ExecutionMode.SAME_THREAD)
+class ConfigurationCacheTest : GradleIntegrationTest() {
+    @Test
+    fun applyReusesConfigurationCache() {
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                format 'misc', {
+                    target file('src/README.md')
+                    trimTrailingWhitespace()
+                    endWithNewline()
+                }
+            }
+            """.trimIndent()
+        )
+        val file = setFile("src/README.md").toContent("hello  ")
+        gradleRunner().withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertEquals("hello\n", file.readText())
+
+        setFile("src/README.md").toContent("again  ")
+        val result = gradleRunner().withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertTrue(result.output.contains("Reusing configuration cache."), result.output)
+        Assertions.assertEquals("again\n", file.readText())
+    }
+
+    @Test
+    fun stepWithConfigFileReusesConfigurationCache() {
+        setFile("dbeaver.properties").toContent(ResourceHarness.getTestResource("sql/dbeaver/sqlConfig2.properties"))
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                sql {
+                    target file('src/create.sql')
+                    dbeaver {
+                        configFile 'dbeaver.properties'
+                    }
+                }
+            }
+            """.trimIndent()
+        )
+        val clean = ResourceHarness.getTestResource("sql/dbeaver/create.clean.alternative")
+        val file = setFile("src/create.sql").toResource("sql/dbeaver/create.dirty")
+        gradleRunner().withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertEquals(clean, file.readText())
+
+        setFile("src/create.sql").toResource("sql/dbeaver/create.dirty")
+        val result = gradleRunner().withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertTrue(result.output.contains("Reusing configuration cache."), result.output)
+        Assertions.assertEquals(clean, file.readText())
+    }
+
+    @Test
+    fun licenseHeaderReusesConfigurationCache() {
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                format 'misc', {
+                    target file('src/A.java')
+                    licenseHeader 'Licensed under MIT'
+                }
+            }
+            """.trimIndent()
+        )
+        val file = setFile("src/A.java").toContent("class A {}\n")
+        // Gradle 7.4 would mark the task as not compatible if the step was not portable
+        gradleRunner().withGradleVersion("7.4").withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertEquals("/*\n * Licensed under MIT\n */\nclass A {}\n", file.readText())
+
+        setFile("src/A.java").toContent("class B {}\n")
+        val result = gradleRunner().withGradleVersion("7.4").withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertTrue(result.output.contains("Reusing configuration cache."), result.output)
+        Assertions.assertEquals("/*\n * Licensed under MIT\n */\nclass B {}\n", file.readText())
+    }
+
+    @Test
+    fun customClosureStepIsNotCompatible() {
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                format 'misc', {
+                    target file('src/README.md')
+                    custom('lowercase', 1) { str -> str.toLowerCase(Locale.ROOT) }
+                }
+            }
+            """.trimIndent()
+        )
+        val file = setFile("src/README.md").toContent("HELLO")
+        // notCompatibleWithConfigurationCache is available since Gradle 7.4
+        gradleRunner().withGradleVersion("7.4").withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertEquals("hello", file.readText())
+
+        setFile("src/README.md").toContent("AGAIN")
+        val result = gradleRunner().withGradleVersion("7.4").withArguments("autostyleApply", "--configuration-cache").build()
+        Assertions.assertFalse(result.output.contains("Reusing configuration cache."), result.output)
+        Assertions.assertEquals("again", file.readText())
+    }
+}
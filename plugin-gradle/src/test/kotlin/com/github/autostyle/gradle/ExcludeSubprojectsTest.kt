@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.parallel.Execution
+import org.junit.jupiter.api.parallel.ExecutionMode
+
+@Execution(ExecutionMode.SAME_THREAD)
+class ExcludeSubprojectsTest : GradleIntegrationTest() {
+    @Test
+    fun subprojectDirectoriesAreSkipped() {
+        setFile("settings.gradle").toContent(
+            """
+            include 'sub', 'sub:nested'
+            """.trimIndent()
+        )
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                format 'markdown', {
+                    filter.include '**/*.md'
+                    trimTrailingWhitespace()
+                }
+            }
+            """.trimIndent()
+        )
+        val rootFile = setFile("docs/README.md").toContent("root  \n")
+        val subFile = setFile("sub/README.md").toContent("sub  \n")
+        val nestedFile = setFile("sub/nested/README.md").toContent("nested  \n")
+        val buildFile = setFile("build/README.md").toContent("build  \n")
+        val similarFile = setFile("subdocs/README.md").toContent("similar  \n")
+        gradleRunner().withArguments("autostyleApply").build()
+
+        Assertions.assertEquals("root\n", rootFile.readText())
+        Assertions.assertEquals("similar\n", similarFile.readText())
+        Assertions.assertEquals("sub  \n", subFile.readText())
+        Assertions.assertEquals("nested  \n", nestedFile.readText())
+        Assertions.assertEquals("build  \n", buildFile.readText())
+    }
+
+    @Test
+    fun customBuildDirectoriesAreSkipped() {
+        setFile("settings.gradle").toContent(
+            """
+            include 'sub'
+            """.trimIndent()
+        )
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            layout.buildDirectory.set(file('out'))
+            project(':sub') {
+                layout.buildDirectory.set(rootProject.file('generated/sub'))
+            }
+            autostyle {
+                format 'markdown', {
+                    filter.include '**/*.md'
+                    trimTrailingWhitespace()
+                }
+            }
+            """.trimIndent()
+        )
+        val rootFile = setFile("README.md").toContent("root  \n")
+        val buildFile = setFile("out/README.md").toContent("build  \n")
+        val subBuildFile = setFile("generated/sub/README.md").toContent("sub  \n")
+        val generatedFile = setFile("generated/README.md").toContent("generated  \n")
+        gradleRunner().withArguments("autostyleApply").build()
+
+        Assertions.assertEquals("root\n", rootFile.readText())
+        Assertions.assertEquals("generated\n", generatedFile.readText())
+        Assertions.assertEquals("build  \n", buildFile.readText())
+        Assertions.assertEquals("sub  \n", subBuildFile.readText())
+    }
+
+    @Test
+    fun siblingCustomBuildDirectoryIsSkipped() {
+        setFile("settings.gradle").toContent(
+            """
+            include 'sub'
+            """.trimIndent()
+        )
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                format 'markdown', {
+                    filter.include '**/*.md'
+                    trimTrailingWhitespace()
+                }
+            }
+            // The task is configured before the sibling project is evaluated
+            tasks.getByName('autostyleMarkdownProcess')
+            """.trimIndent()
+        )
+        setFile("sub/build.gradle").toContent(
+            """
+            layout.buildDirectory.set(rootProject.file('generated/sub'))
+            """.trimIndent()
+        )
+        val rootFile = setFile("README.md").toContent("root  \n")
+        val subBuildFile = setFile("generated/sub/README.md").toContent("sub  \n")
+        gradleRunner().withArguments("autostyleApply").build()
+
+        Assertions.assertEquals("root\n", rootFile.readText())
+        Assertions.assertEquals("sub  \n", subBuildFile.readText())
+    }
+}
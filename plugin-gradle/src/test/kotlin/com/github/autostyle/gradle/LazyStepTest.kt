@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.parallel.Execution
+import org.junit.jupiter.api.parallel.ExecutionMode
+
+@Execution(ExecutionMode.SAME_THREAD)
+class LazyStepTest : GradleIntegrationTest() {
+    @Test
+    fun stepsAreNotCreatedUnlessTaskRuns() {
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                format 'misc', {
+                    target file('src/test.sh')
+                    // copyright is not configured, so the step would fail if it was created
+                    licenseHeader()
+                }
+            }
+            """.trimIndent()
+        )
+        setFile("src/test.sh").toContent("echo hello\n")
+        gradleRunner().withArguments("help").build()
+
+        val result = gradleRunner().withArguments("autostyleApply").buildAndFail()
+        Assertions.assertTrue(result.output.contains("copyright"), result.output)
+    }
+}
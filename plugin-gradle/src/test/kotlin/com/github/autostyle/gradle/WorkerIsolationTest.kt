@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.gradle
+
+import com.github.autostyle.ResourceHarness
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.parallel.Execution
+import org.junit.jupiter.api.parallel.ExecutionMode
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+
+@Execution(ExecutionMode.SAME_THREAD)
+class WorkerIsolationTest : GradleIntegrationTest() {
+    @ParameterizedTest
+    @ValueSource(strings = ["classloader", "process"])
+    fun stepWithConfigFileFormatsInWorkers(isolation: String) {
+        setFile("gradle.properties").toContent("autostyle.worker.isolation=$isolation")
+        setFile("dbeaver.properties").toContent(ResourceHarness.getTestResource("sql/dbeaver/sqlConfig2.properties"))
+        setFile("build.gradle").toContent(
+            """
+            plugins {
+                id 'com.github.autostyle'
+            }
+            autostyle {
+                sql {
+                    target file('src/create.sql')
+                    dbeaver {
+                        configFile 'dbeaver.properties'
+                    }
+                }
+            }
+            """.trimIndent()
+        )
+        val file = setFile("src/create.sql").toResource("sql/dbeaver/create.dirty")
+        gradleRunner().withArguments("autostyleApply", "--info").build().let {
+            Assertions.assertFalse(it.output.contains("formats the files without workers"), it.output)
+        }
+        Assertions.assertEquals(ResourceHarness.getTestResource("sql/dbeaver/create.clean.alternative"), file.readText())
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+
+public class AutostyleCacheTest extends ResourceHarness {
+  @AfterEach
+  public void resetCache() {
+    AutostyleCache.setLimits(16, Duration.ofMinutes(10));
+    AutostyleCache.clear();
+  }
+
+  @SuppressWarnings("deprecation")
+  private JarState jarState(String coordinate) throws IOException {
+    File jar = setFile(coordinate.replace(':', '_') + ".jar").toContent("");
+    return new JarState(coordinate, FileSignature.signAsSet(jar), Collections.singleton(jar));
+  }
+
+  @Test
+  public void leasesShareClassLoader() throws IOException {
+    JarState state = jarState("group:a:1");
+    try (AutostyleCache.Lease first = AutostyleCache.instance().lease(state, state);
+         AutostyleCache.Lease second = AutostyleCache.instance().lease(state, state)) {
+      assertThat(second.getClassLoader()).isSameAs(first.getClassLoader());
+      assertThat(jarState("group:b:1").getClassLoader()).isNotSameAs(first.getClassLoader());
+      assertThat(AutostyleCache.size()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void unusedClassLoadersAreEvicted() throws IOException {
+    JarState state = jarState("group:a:1");
+    AutostyleCache.Lease first = AutostyleCache.instance().lease(state, state);
+    AutostyleCache.Lease second = AutostyleCache.instance().lease(state, state);
+    AutostyleCache.setLimits(0, Duration.ofMinutes(10));
+
+    first.close();
+    first.close();
+    assertThat(AutostyleCache.size()).as("the classloader is still leased").isEqualTo(1);
+
+    second.close();
+    AutostyleCache.trim();
+    assertThat(AutostyleCache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void idleClassLoadersAreEvicted() throws IOException {
+    JarState state = jarState("group:a:1");
+    AutostyleCache.instance().lease(state, state).close();
+    assertThat(AutostyleCache.size()).isEqualTo(1);
+    AutostyleCache.setLimits(16, Duration.ZERO);
+    assertThat(AutostyleCache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void classLoadersWithoutLeaseArePinned() throws IOException {
+    JarState state = jarState("group:a:1");
+    ClassLoader classLoader = state.getClassLoader();
+    AutostyleCache.setLimits(0, Duration.ZERO);
+    assertThat(AutostyleCache.size()).isEqualTo(1);
+    assertThat(state.getClassLoader()).isSameAs(classLoader);
+  }
+}
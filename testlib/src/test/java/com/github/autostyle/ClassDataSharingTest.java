@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ClassDataSharingTest extends ResourceHarness {
+  @Test
+  public void archivePerClasspath() {
+    String name = ClassDataSharing.archiveName("a.jar");
+    assertThat(ClassDataSharing.archiveName("a.jar")).isEqualTo(name);
+    assertThat(ClassDataSharing.archiveName("b.jar")).isNotEqualTo(name);
+  }
+
+  @Test
+  public void jvmArgs() throws IOException {
+    File archives = newFolder("cds");
+    if (ClassDataSharing.isSupported()) {
+      assertThat(ClassDataSharing.jvmArgs(archives, "a.jar")).containsExactly(
+          "-XX:+AutoCreateSharedArchive",
+          "-XX:SharedArchiveFile=" + new File(archives, ClassDataSharing.archiveName("a.jar")).getAbsolutePath());
+    } else {
+      assertThat(ClassDataSharing.jvmArgs(archives, "a.jar")).isEmpty();
+    }
+  }
+}
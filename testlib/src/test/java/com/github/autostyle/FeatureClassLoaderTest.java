@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+public class FeatureClassLoaderTest extends ResourceHarness {
+  private File jar(String name, String entry, String content) throws IOException {
+    File jar = newFile(name);
+    try (OutputStream os = Files.newOutputStream(jar.toPath());
+         JarOutputStream out = new JarOutputStream(os)) {
+      out.putNextEntry(new JarEntry(entry));
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    return jar;
+  }
+
+  @Test
+  public void resourcesAreLookedUpInIndexedJars() throws IOException {
+    URL first = jar("a.jar", "META-INF/services/svc", "a").toURI().toURL();
+    URL second = jar("b.jar", "META-INF/services/svc", "b").toURI().toURL();
+    URL other = jar("c.jar", "other/resource.txt", "c").toURI().toURL();
+    try (FeatureClassLoader classLoader = new FeatureClassLoader(new URL[]{first, second, other}, getClass().getClassLoader())) {
+      assertThat(Collections.list(classLoader.getResources("META-INF/services/svc")))
+          .extracting(URL::toExternalForm)
+          .containsExactly(
+              "jar:" + first.toExternalForm() + "!/META-INF/services/svc",
+              "jar:" + second.toExternalForm() + "!/META-INF/services/svc");
+      try (InputStream is = classLoader.getResourceAsStream("other/resource.txt")) {
+        assertThat(is).isNotNull();
+        assertThat(new String(is.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("c");
+      }
+      assertThat(classLoader.getResource("other/missing.txt")).isNull();
+      assertThatThrownBy(() -> classLoader.loadClass("other.Missing"))
+          .isInstanceOf(ClassNotFoundException.class);
+    }
+  }
+
+  @Test
+  public void multiReleaseResourcesMatchUrlClassLoader() throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+    File jar = newFile("multi-release.jar");
+    try (OutputStream os = Files.newOutputStream(jar.toPath());
+         JarOutputStream out = new JarOutputStream(os, manifest)) {
+      out.putNextEntry(new JarEntry("res/data.txt"));
+      out.write("base".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+      out.putNextEntry(new JarEntry("META-INF/versions/9/res/data.txt"));
+      out.write("versioned".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    URL[] urls = {jar.toURI().toURL()};
+    try (FeatureClassLoader classLoader = new FeatureClassLoader(urls, getClass().getClassLoader());
+         URLClassLoader reference = new URLClassLoader(urls, null)) {
+      URL resource = classLoader.getResource("res/data.txt");
+      assertThat(resource).isEqualTo(reference.getResource("res/data.txt"));
+      try (InputStream is = resource.openStream()) {
+        assertThat(new String(is.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("versioned");
+      }
+    }
+  }
+}
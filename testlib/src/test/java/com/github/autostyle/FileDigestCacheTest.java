@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class FileDigestCacheTest extends ResourceHarness {
+  @AfterEach
+  public void clear() {
+    FileDigestCache.setStore(null);
+    FileDigestCache.clear();
+  }
+
+  /** Files modified just now are not memoized, so the tests pretend the files are old. */
+  private File oldFile(String name, String content) throws IOException {
+    File file = setFile(name).toContent(content);
+    assertThat(file.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1))).isTrue();
+    return file;
+  }
+
+  @Test
+  public void digestsDependOnContent() throws IOException {
+    List<byte[]> digests = FileDigestCache.digestAll(Arrays.asList(
+        oldFile("a", "same"), oldFile("b", "same"), oldFile("c", "other")));
+    assertThat(digests.get(0)).isEqualTo(digests.get(1));
+    assertThat(digests.get(0)).isNotEqualTo(digests.get(2));
+  }
+
+  @Test
+  public void modifiedFileIsHashedAgain() throws IOException {
+    File file = oldFile("a", "before");
+    byte[] before = FileDigestCache.digestAll(Arrays.asList(file)).get(0);
+    assertThat(FileDigestCache.digestAll(Arrays.asList(file)).get(0)).isSameAs(before);
+
+    oldFile("a", "after!");
+    assertThat(FileDigestCache.digestAll(Arrays.asList(file)).get(0)).isNotEqualTo(before);
+  }
+
+  @Test
+  public void saveAndLoad() throws IOException {
+    File file = oldFile("a", "content");
+    byte[] digest = FileDigestCache.digestAll(Arrays.asList(file)).get(0);
+    File memo = newFile("memo.bin");
+    FileDigestCache.save(memo);
+    FileDigestCache.clear();
+
+    FileDigestCache.load(memo);
+    assertThat(FileDigestCache.digestAll(Arrays.asList(file)).get(0)).isEqualTo(digest);
+  }
+
+  @Test
+  public void storeIsLoadedOnFirstUse() throws IOException {
+    FileDigestCache.digestAll(Arrays.asList(oldFile("a", "a")));
+    File memo = newFile("memo.bin");
+    FileDigestCache.save(memo);
+    FileDigestCache.clear();
+
+    FileDigestCache.setStore(memo);
+    FileDigestCache.digestAll(Arrays.asList(oldFile("b", "b")));
+    assertThat(FileDigestCache.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void saveDropsDeletedFiles() throws IOException {
+    File deleted = oldFile("deleted", "deleted");
+    FileDigestCache.digestAll(Arrays.asList(oldFile("kept", "kept"), deleted));
+    assertThat(deleted.delete()).isTrue();
+    FileDigestCache.save(newFile("memo.bin"));
+    assertThat(FileDigestCache.size()).isEqualTo(1);
+
+    FileDigestCache.clear();
+    FileDigestCache.load(newFile("memo.bin"));
+    assertThat(FileDigestCache.size()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FormatterFuncRegistryTest {
+  private static final AtomicInteger created = new AtomicInteger();
+
+  private static FormatterFunc createFormatter(String suffix) {
+    created.incrementAndGet();
+    return input -> input + suffix;
+  }
+
+  private static FormatterStepImpl.Standard<?> step(String suffix) {
+    return (FormatterStepImpl.Standard<?>) FormatterStep.createLazy("suffix",
+        () -> suffix,
+        FormatterFuncRegistryTest::createFormatter);
+  }
+
+  private static String format(FormatterStepImpl.Standard<?> step) throws Throwable {
+    try {
+      return step.format("a", new File("a.txt"));
+    } finally {
+      step.cleanupFormatterFunc();
+    }
+  }
+
+  @AfterEach
+  public void clear() {
+    AutostyleCache.clear();
+    created.set(0);
+  }
+
+  @Test
+  public void equalStepsReuseFormatter() throws Throwable {
+    assertThat(format(step("b"))).isEqualTo("ab");
+    assertThat(format(step("b"))).isEqualTo("ab");
+    assertThat(created).hasValue(1);
+
+    assertThat(format(step("c"))).isEqualTo("ac");
+    assertThat(created).hasValue(2);
+  }
+
+  @Test
+  public void concurrentUsesGetDistinctFormatters() throws Throwable {
+    FormatterStepImpl.Standard<?> first = step("b");
+    FormatterStepImpl.Standard<?> second = step("b");
+    first.format("a", new File("a.txt"));
+    second.format("a", new File("a.txt"));
+    assertThat(second.formatter).isNotSameAs(first.formatter);
+    first.cleanupFormatterFunc();
+    second.cleanupFormatterFunc();
+    assertThat(created).hasValue(2);
+  }
+
+  @Test
+  public void capturingFactoriesAreNotShared() throws Throwable {
+    String suffix = "b";
+    ThrowingEx.SerializableFunction<String, FormatterFunc> capturing = state -> createFormatter(state + suffix);
+    for (int i = 0; i < 2; i++) {
+      FormatterStepImpl.Standard<?> step =
+          (FormatterStepImpl.Standard<?>) FormatterStep.createLazy("suffix", () -> "", capturing);
+      assertThat(format(step)).isEqualTo("ab");
+    }
+    assertThat(created).hasValue(2);
+  }
+}
@@ -15,15 +15,26 @@
  */
 package com.github.autostyle;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
 import com.github.autostyle.generic.EndWithNewlineStep;
+import com.github.autostyle.generic.ReplaceRegexStep;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FormatterTest {
   // Formatter normally needs to be closed, but no resources will be leaked in this special case
@@ -34,6 +45,7 @@ public class FormatterTest {
       private Charset encoding = StandardCharsets.UTF_8;
       private Path rootDir = Paths.get(System.getProperty("user.dir"));
       private List<FormatterStep> steps = new ArrayList<>();
+      private SkipPolicy skipPolicy = SkipPolicy.NONE;
 
       @Override
       protected void setupTest(API api) throws Exception {
@@ -50,6 +62,9 @@ public class FormatterTest {
 
         steps.add(EndWithNewlineStep.create());
         api.areDifferentThan();
+
+        skipPolicy = SkipPolicy.builder().skipBinary(true).build();
+        api.areDifferentThan();
       }
 
       @Override
@@ -59,8 +74,91 @@ public class FormatterTest {
             .encoding(encoding)
             .rootDir(rootDir)
             .steps(steps)
+            .skipPolicy(skipPolicy)
             .build();
       }
     }.testEquals();
   }
+
+  @Test
+  public void skipPolicyReadsTheRestOfLargeFiles(@TempDir Path dir) throws IOException {
+    String content = String.join("", Collections.nCopies(SkipPolicy.SNIFF_LENGTH, "ab"));
+    File file = dir.resolve("large.txt").toFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    try (Formatter formatter = Formatter.builder()
+        .lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+        .encoding(StandardCharsets.UTF_8)
+        .rootDir(dir)
+        .steps(Collections.singletonList(EndWithNewlineStep.create()))
+        .skipPolicy(SkipPolicy.builder().skipBinary(true).build())
+        .build()) {
+      assertThat(formatter.formatOrNull(file)).isEqualTo(content + "\n");
+    }
+  }
+
+  @Test
+  public void stepTimeoutInterruptsExternalStep() {
+    FormatterStep slow = FormatterStep.createNeverUpToDate("slow", raw -> {
+      Thread.sleep(60_000);
+      return raw;
+    });
+    assertStepTimesOut(slow, "content");
+  }
+
+  @Test
+  public void stepTimeoutStopsRegexBacktracking() {
+    FormatterStep regex = ReplaceRegexStep.create("backtracking", "(.*a){12}x", "");
+    assertStepTimesOut(regex, String.join("", Collections.nCopies(30, "a")));
+  }
+
+  private static final AtomicInteger createdFormatters = new AtomicInteger();
+
+  private static FormatterFunc sleepOnSlowInput(String state) {
+    createdFormatters.incrementAndGet();
+    return raw -> {
+      if (raw.equals("slow")) {
+        Thread.sleep(60_000);
+      }
+      return raw;
+    };
+  }
+
+  @Test
+  public void timedOutFormatterIsNotReused() {
+    FormatterStep step = FormatterStep.createLazy("sleepy", () -> "", FormatterTest::sleepOnSlowInput);
+    createdFormatters.set(0);
+    try {
+      assertStepTimesOut(step, "slow");
+      try (Formatter formatter = formatterWithTimeout(step)) {
+        assertThat(formatter.compute("fast", ROOT_DIR.resolve("file.txt").toFile())).isEqualTo("fast");
+      }
+      assertThat(createdFormatters).hasValue(2);
+    } finally {
+      AutostyleCache.clear();
+    }
+  }
+
+  private static final Path ROOT_DIR = Paths.get(System.getProperty("user.dir"));
+
+  private static Formatter formatterWithTimeout(FormatterStep step) {
+    return Formatter.builder()
+        .lineEndingsPolicy(LineEnding.UNIX.createPolicy())
+        .encoding(StandardCharsets.UTF_8)
+        .rootDir(ROOT_DIR)
+        .steps(Collections.singletonList(step))
+        .stepTimeout(Duration.ofMillis(100))
+        .build();
+  }
+
+  private static void assertStepTimesOut(FormatterStep step, String input) {
+    File file = ROOT_DIR.resolve("file.txt").toFile();
+    try (Formatter formatter = formatterWithTimeout(step)) {
+      FormatterException e = catchThrowableOfType(FormatterException.class, () -> formatter.compute(input, file));
+      assertThat(e)
+          .hasMessageContaining("file.txt")
+          .hasMessageContaining(step.getName() + " exceeded its time budget");
+      assertThat(e.getStep()).isEqualTo(step.getName());
+    }
+    assertThat(Thread.currentThread().isInterrupted()).isFalse();
+  }
 }
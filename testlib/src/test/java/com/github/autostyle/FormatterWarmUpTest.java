@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FormatterWarmUpTest {
+  private static final AtomicInteger created = new AtomicInteger();
+  private static final AtomicInteger formatted = new AtomicInteger();
+
+  private static FormatterFunc createFormatter(String suffix) {
+    created.incrementAndGet();
+    return input -> {
+      formatted.incrementAndGet();
+      return input + suffix;
+    };
+  }
+
+  private static FormatterStep step(String suffix) {
+    return FormatterStep.createLazy("suffix", () -> suffix, FormatterWarmUpTest::createFormatter);
+  }
+
+  @AfterEach
+  public void clear() {
+    AutostyleCache.clear();
+    created.set(0);
+    formatted.set(0);
+  }
+
+  @Test
+  public void stepsReuseWarmFormatters() throws Throwable {
+    FormatterStep step = step("b");
+    FormatterWarmUp.start(Arrays.asList(step, step("b"), step("c").filterByFile(SerializableFileFilter.skipFilesNamed("x"))), false).join();
+    assertThat(created).hasValue(2);
+    assertThat(formatted).hasValue(0);
+
+    assertThat(step.format("a", new File("a.txt"))).isEqualTo("ab");
+    ((FormatterStepImpl.Standard<?>) step).cleanupFormatterFunc();
+    assertThat(created).hasValue(2);
+  }
+
+  @Test
+  public void runSample() {
+    FormatterWarmUp.start(Arrays.asList(step("b")), true).join();
+    assertThat(created).hasValue(1);
+    assertThat(formatted).hasValue(1);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class JarStateTest extends ResourceHarness {
+  private static final String CACHE = "/home/user/.gradle/caches/modules-2/files-2.1/";
+
+  @Test
+  public void gradleCacheArtifactIsImmutable() {
+    assertThat(JarState.immutableArtifactId(new File(CACHE
+        + "com.google.googlejavaformat/google-java-format/1.28.0/0c7e8a61d1b6e3e5fa2b3f4b1e9b6b1c5a2d3e4f/google-java-format-1.28.0.jar")))
+        .isEqualTo("com.google.googlejavaformat:google-java-format:1.28.0:0c7e8a61d1b6e3e5fa2b3f4b1e9b6b1c5a2d3e4f:google-java-format-1.28.0.jar");
+  }
+
+  @Test
+  public void snapshotIsHashed() {
+    assertThat(JarState.immutableArtifactId(new File(CACHE
+        + "com.example/formatter/1.0-SNAPSHOT/0c7e8a61d1b6e3e5fa2b3f4b1e9b6b1c5a2d3e4f/formatter-1.0-SNAPSHOT.jar")))
+        .isNull();
+  }
+
+  @Test
+  public void localFileIsHashed() {
+    assertThat(JarState.immutableArtifactId(new File("/home/user/.m2/repository/com/example/formatter/1.0/formatter-1.0.jar")))
+        .isNull();
+    assertThat(JarState.immutableArtifactId(new File("libs/formatter.jar")))
+        .isNull();
+  }
+
+  @Test
+  public void lockfileIsResolvedWithoutTransitives() throws IOException {
+    File lockfile = setFile("formatter.lockfile").toContent(
+        "# pinned formatter classpath\n"
+            + "com.example:formatter:1.0\n"
+            + "\n"
+            + "  com.example:formatter-deps:2.0  \n");
+    File jar = setFile("formatter.jar").toContent("");
+    List<String> requested = new ArrayList<>();
+    boolean[] transitive = {true};
+    JarState state = JarState.fromLockfile(lockfile.toURI().toURL(), (withTransitives, mavenCoordinates) -> {
+      transitive[0] = withTransitives;
+      requested.addAll(mavenCoordinates);
+      return Collections.singleton(jar);
+    });
+    assertThat(transitive[0]).isFalse();
+    assertThat(requested).containsExactly("com.example:formatter:1.0", "com.example:formatter-deps:2.0");
+    assertThat(state.getMavenCoordinates()).containsExactly("com.example:formatter-deps:2.0", "com.example:formatter:1.0");
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void copyKeepsJars() throws Exception {
+    File jar = setFile("formatter.jar").toContent("");
+    JarState state = new JarState("com.example:formatter:1.0", FileSignature.signAsSet(jar), Collections.singleton(jar));
+    byte[] bytes = LazyForwardingEquality.toBytes(state);
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      JarState copy = (JarState) in.readObject();
+      assertThat(copy.jarUrls()).containsExactly(jar.toURI().toURL());
+    }
+  }
+}
@@ -16,10 +16,16 @@
 package com.github.autostyle;
 
 import static com.diffplug.common.testing.SerializableTester.reserializeAndAssert;
+import static org.assertj.core.api.Assertions.assertThat;
 
 import com.diffplug.common.testing.EqualsTester;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @SuppressWarnings("serial")
 public class LazyForwardingEqualityTest {
   static Str s(String state) {
@@ -58,4 +64,73 @@ public class LazyForwardingEqualityTest {
         .addEqualityGroup(o("world"), reserializeAndAssert(o("world")))
         .testEquals();
   }
+
+  static class CountingState implements Serializable {
+    final AtomicInteger serializations;
+
+    CountingState(AtomicInteger serializations) {
+      this.serializations = serializations;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      serializations.incrementAndGet();
+      out.defaultWriteObject();
+    }
+  }
+
+  static class Counting extends LazyForwardingEquality<CountingState> {
+    private final transient AtomicInteger serializations;
+
+    Counting(AtomicInteger serializations) {
+      this.serializations = serializations;
+    }
+
+    @Override
+    protected CountingState calculateState() {
+      return new CountingState(serializations);
+    }
+  }
+
+  @Test
+  public void serializedFormIsCached() {
+    AtomicInteger a = new AtomicInteger();
+    AtomicInteger b = new AtomicInteger();
+    Counting first = new Counting(a);
+    Counting second = new Counting(b);
+    for (int i = 0; i < 3; i++) {
+      assertThat(first.hashCode()).isEqualTo(second.hashCode());
+      assertThat(first).isEqualTo(second);
+    }
+    assertThat(a).hasValue(1);
+    assertThat(b).hasValue(1);
+
+    byte[] bytes = first.toBytes();
+    bytes[0]++;
+    assertThat(first.toBytes()).as("toBytes returns a copy").isNotEqualTo(bytes);
+  }
+
+  static class Hashable implements HashableState {
+    final String value;
+
+    Hashable(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putString(value);
+    }
+  }
+
+  @Test
+  public void toBytesReturnsSerializedFormOfHashableState() {
+    Hashable state = new Hashable("hello");
+    LazyForwardingEquality<Hashable> step = new LazyForwardingEquality<Hashable>() {
+      @Override
+      protected Hashable calculateState() {
+        return state;
+      }
+    };
+    assertThat(step.toBytes()).isEqualTo(LazyForwardingEquality.toBytes(state));
+  }
 }
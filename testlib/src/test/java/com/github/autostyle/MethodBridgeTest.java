@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+public class MethodBridgeTest {
+  public static String wrap(String input, String prefix, int count) {
+    return prefix.repeat(count) + input;
+  }
+
+  public static String fail(String input) throws java.io.IOException {
+    throw new java.io.IOException(input);
+  }
+
+  @Test
+  public void instanceMethod() throws Throwable {
+    FormatterFunc func = MethodBridge.stringFunction(String.class.getMethod("concat", String.class), "a");
+    assertThat(func.apply("b")).isEqualTo("ab");
+  }
+
+  @Test
+  public void staticMethodWithTrailingArguments() throws Throwable {
+    FormatterFunc func = MethodBridge.stringFunction(
+        MethodBridgeTest.class.getMethod("wrap", String.class, String.class, int.class), null, "-", 2);
+    assertThat(func.apply("x")).isEqualTo("--x");
+  }
+
+  @Test
+  public void exceptionIsNotWrapped() throws Throwable {
+    FormatterFunc func = MethodBridge.stringFunction(MethodBridgeTest.class.getMethod("fail", String.class), null);
+    assertThatThrownBy(() -> func.apply("boom"))
+        .isExactlyInstanceOf(java.io.IOException.class)
+        .hasMessage("boom");
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.autostyle.generic.DefaultCopyrightStyle;
+import com.github.autostyle.generic.ImprovedLicenseHeaderStep;
+import com.github.autostyle.sql.DBeaverSQLFormatterStep;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+public class PortableStepTest extends ResourceHarness {
+  static FormatterFunc upperCase(String suffix) {
+    return input -> input.toUpperCase(Locale.ROOT) + suffix;
+  }
+
+  static class ByExtension extends NoLambda.EqualityBasedOnSerialization implements LineEnding.Policy {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getEndingFor(File file) {
+      return file.getName().endsWith(".bat") ? LineEnding.WINDOWS.str() : LineEnding.UNIX.str();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends Serializable> T reserialize(T value) throws IOException, ClassNotFoundException {
+    byte[] bytes = LazyForwardingEquality.toBytes(value);
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (T) in.readObject();
+    }
+  }
+
+  @Test
+  public void copyOfPortableStepFormats() throws Throwable {
+    FormatterStep step = FormatterStep.createLazy("upperCase", () -> "!", PortableStepTest::upperCase)
+        .filterByFile(SerializableFileFilter.skipFilesNamed("skip.txt"));
+    assertThat(step.isPortable()).isTrue();
+
+    FormatterStep copy = reserialize(step);
+    assertThat(copy.getName()).isEqualTo("upperCase");
+    assertThat(copy).isEqualTo(step);
+    assertThat(copy.format("a", new File("a.txt"))).isEqualTo("A!");
+    assertThat(copy.format("a", new File("skip.txt"))).isEqualTo("a");
+  }
+
+  @Test
+  public void copyOfStepWithConfigFileFormats() throws Throwable {
+    FormatterStep step = DBeaverSQLFormatterStep.create(createTestFiles("sql/dbeaver/sqlConfig2.properties"));
+    assertThat(step.isPortable()).isTrue();
+
+    StepHarness.forStep(reserialize(step))
+        .testResource("sql/dbeaver/create.dirty", "sql/dbeaver/create.clean.alternative");
+  }
+
+  @Test
+  public void copyOfLicenseHeaderStepFormats() throws Throwable {
+    FormatterStep step = new ImprovedLicenseHeaderStep(
+        "Licensed", false, Collections.singletonMap("java", DefaultCopyrightStyle.JAVA));
+    assertThat(step.isPortable()).isTrue();
+    // The cached headers are not serialized, so the copy creates them again
+    assertThat(step.format("class A {}\n", new File("A.java"))).isEqualTo("/*\n * Licensed\n */\nclass A {}\n");
+
+    FormatterStep copy = reserialize(step);
+    assertThat(copy.format("class B {}\n", new File("B.java"))).isEqualTo("/*\n * Licensed\n */\nclass B {}\n");
+  }
+
+  @Test
+  public void copyOfNonPortableStepFails() throws Throwable {
+    Object notSerializable = new Object();
+    FormatterStep step = FormatterStep.create("capturing", "", state -> input -> input + notSerializable.hashCode());
+    assertThat(step.isPortable()).isFalse();
+
+    FormatterStep copy = reserialize(step);
+    assertThat(copy.getName()).isEqualTo("capturing");
+    assertThat(copy).isEqualTo(step);
+    assertThatThrownBy(() -> copy.format("a", new File("a.txt")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("capturing");
+  }
+
+  @Test
+  public void stepWithPlainFunctionIsNotPortable() throws Throwable {
+    ThrowingEx.Function<String, FormatterFunc> factory = PortableStepTest::upperCase;
+    FormatterStep step = FormatterStep.create("plain", "!", factory);
+    assertThat(step.isPortable()).isFalse();
+    assertThat(step.format("a", new File("a.txt"))).isEqualTo("A!");
+  }
+
+  @Test
+  public void resolvedLineEndings() throws Exception {
+    File txt = newFile("a.txt");
+    File bat = newFile("a.bat");
+    LineEnding.Policy resolved = reserialize(LineEnding.resolve(new ByExtension(), Arrays.asList(txt, bat)));
+    assertThat(resolved.getEndingFor(txt)).isEqualTo(LineEnding.UNIX.str());
+    assertThat(resolved.getEndingFor(bat)).isEqualTo(LineEnding.WINDOWS.str());
+    assertThatThrownBy(() -> resolved.getEndingFor(newFile("b.txt")))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    LineEnding.Policy unix = LineEnding.UNIX.createPolicy();
+    assertThat(LineEnding.resolve(unix, Arrays.asList(txt, bat))).isSameAs(unix);
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProvisionerCacheTest extends ResourceHarness {
+  private final AtomicInteger resolutions = new AtomicInteger();
+
+  private Provisioner resolving(File jar) {
+    return (withTransitives, mavenCoordinates) -> {
+      resolutions.incrementAndGet();
+      return Collections.singleton(jar);
+    };
+  }
+
+  @Test
+  public void resolvesOncePerBuild() throws IOException {
+    File jar = setFile("a.jar").toContent("a");
+    ProvisionerCache cache = new ProvisionerCache();
+    Set<File> first = cache.wrap(resolving(jar)).provisionWithTransitives(true, "group:a:1.0");
+    Set<File> second = cache.wrap(resolving(jar)).provisionWithTransitives(true, "group:a:1.0");
+    assertThat(second).containsExactly(jar).isEqualTo(first);
+    assertThat(resolutions).hasValue(1);
+
+    cache.wrap(resolving(jar)).provisionWithTransitives(false, "group:a:1.0");
+    assertThat(resolutions).as("withTransitives is a part of the key").hasValue(2);
+  }
+}
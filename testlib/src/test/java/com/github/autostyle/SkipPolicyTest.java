@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class SkipPolicyTest {
+  private static byte[] utf8(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void none() {
+    assertThat(SkipPolicy.NONE.isEnabled()).isFalse();
+    assertThat(SkipPolicy.NONE.checkContent(new byte[]{0, 1, 2}, StandardCharsets.UTF_8)).isNull();
+  }
+
+  @Test
+  public void binary() {
+    SkipPolicy policy = SkipPolicy.builder().skipBinary(true).build();
+    assertThat(policy.checkContent(utf8("plain text\n"), StandardCharsets.UTF_8)).isNull();
+    assertThat(policy.checkContent(new byte[]{'a', 0, 'b'}, StandardCharsets.UTF_8))
+        .isEqualTo(SkipPolicy.Reason.BINARY);
+    assertThat(policy.checkContent(new byte[]{'a', (byte) 0xC3, 'b'}, StandardCharsets.UTF_8))
+        .as("invalid UTF-8")
+        .isEqualTo(SkipPolicy.Reason.BINARY);
+    assertThat(policy.checkContent("text".getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16))
+        .as("NUL bytes are fine for UTF-16")
+        .isNull();
+  }
+
+  @Test
+  public void multibyteCharacterAtSniffBoundary() {
+    byte[] content = new byte[SkipPolicy.SNIFF_LENGTH + 10];
+    Arrays.fill(content, (byte) 'a');
+    byte[] euro = utf8("\u20ac");
+    System.arraycopy(euro, 0, content, SkipPolicy.SNIFF_LENGTH - 1, euro.length);
+    SkipPolicy policy = SkipPolicy.builder().skipBinary(true).build();
+    assertThat(policy.checkContent(content, StandardCharsets.UTF_8)).isNull();
+  }
+
+  @Test
+  public void maxFileSize() {
+    SkipPolicy policy = SkipPolicy.builder().maxFileSize(4).build();
+    assertThat(policy.checkSize(4)).isNull();
+    assertThat(policy.checkSize(5)).isEqualTo(SkipPolicy.Reason.TOO_LARGE);
+  }
+
+  @Test
+  public void generated() {
+    SkipPolicy policy = SkipPolicy.builder().generatedMarkers(SkipPolicy.DEFAULT_GENERATED_MARKERS).build();
+    assertThat(policy.checkContent(utf8("// Code generated by protoc. DO NOT EDIT.\npackage x\n"), StandardCharsets.UTF_8))
+        .isEqualTo(SkipPolicy.Reason.GENERATED);
+    assertThat(policy.checkContent(utf8("@Generated(\"x\")\nclass A {}\n"), StandardCharsets.UTF_8))
+        .isEqualTo(SkipPolicy.Reason.GENERATED);
+    assertThat(policy.checkContent(utf8("class A {}\n"), StandardCharsets.UTF_8)).isNull();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.autostyle.generic.ReplaceStep;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class StateHasherTest {
+  @SuppressWarnings("serial")
+  static final class Lambda implements HashableState {
+    private final transient Consumer<StateHasher> hashTo;
+
+    Lambda(Consumer<StateHasher> hashTo) {
+      this.hashTo = hashTo;
+    }
+
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hashTo.accept(hasher);
+    }
+  }
+
+  /** The location is serialized, but it is not a part of the identity. */
+  @SuppressWarnings("serial")
+  static final class Located implements HashableState {
+    private final String location;
+    private final String content;
+
+    Located(String location, String content) {
+      this.location = location;
+      this.content = content;
+    }
+
+    @Override
+    public void hashTo(StateHasher hasher) {
+      hasher.putString(content);
+    }
+  }
+
+  @SuppressWarnings("serial")
+  static final class Plain implements Serializable {
+    private final Located located;
+
+    Plain(Located located) {
+      this.located = located;
+    }
+  }
+
+  private static byte[] hash(Consumer<StateHasher> hashTo) {
+    return StateHasher.hash(new Lambda(hashTo));
+  }
+
+  @Test
+  public void valuesAreDelimited() {
+    assertThat(hash(h -> h.putString("ab").putString("c")))
+        .isNotEqualTo(hash(h -> h.putString("a").putString("bc")));
+    assertThat(hash(h -> h.putStrings(Arrays.asList("a", "b")).putString("c")))
+        .isNotEqualTo(hash(h -> h.putStrings(Arrays.asList("a")).putString("b").putString("c")));
+    assertThat(hash(h -> h.putInt(1)))
+        .isNotEqualTo(hash(h -> h.putLong(1)));
+  }
+
+  @Test
+  public void stable() {
+    assertThat(hash(h -> h.putString("x").putInt(42).putBoolean(true)))
+        .isEqualTo(hash(h -> h.putString("x").putInt(42).putBoolean(true)));
+  }
+
+  @Test
+  public void mapOrderDoesNotMatter() {
+    Map<String, Object> first = new LinkedHashMap<>();
+    first.put("a", 1);
+    first.put("b", Arrays.asList("x", true));
+    Map<String, Object> second = new HashMap<>();
+    second.put("b", Arrays.asList("x", true));
+    second.put("a", 1);
+    assertThat(hash(h -> h.putValue(first))).isEqualTo(hash(h -> h.putValue(second)));
+
+    second.put("a", 2);
+    assertThat(hash(h -> h.putValue(first))).isNotEqualTo(hash(h -> h.putValue(second)));
+  }
+
+  @Test
+  public void stepsFingerprint() {
+    FormatterStep ab = ReplaceStep.create("replace", "a", "b");
+    FormatterStep ac = ReplaceStep.create("replace", "a", "c");
+    String fingerprint = StateHasher.fingerprint(Arrays.asList(ab, ac));
+
+    assertThat(StateHasher.fingerprint(Arrays.asList(ReplaceStep.create("other name", "a", "b"), ac)))
+        .isEqualTo(fingerprint);
+    assertThat(StateHasher.fingerprint(Arrays.asList(ac, ab)))
+        .isNotEqualTo(fingerprint);
+    assertThat(StateHasher.fingerprint(Collections.singletonList(ab)))
+        .isNotEqualTo(fingerprint);
+    assertThat(StateHasher.fingerprint(Arrays.asList(ab.filterByFile(SerializableFileFilter.skipFilesNamed("x")), ac)))
+        .isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  public void serializedValuesUseDigestOfNestedStates() {
+    assertThat(hash(h -> h.putValue(new Plain(new Located("/a", "x")))))
+        .isEqualTo(hash(h -> h.putValue(new Plain(new Located("/b", "x")))))
+        .isNotEqualTo(hash(h -> h.putValue(new Plain(new Located("/a", "y")))));
+    assertThat(StateFingerprint.of(new Plain(new Located("/a", "x"))))
+        .isEqualTo(StateFingerprint.of(new Plain(new Located("/b", "x"))))
+        .isNotEqualTo(StateFingerprint.of(new Plain(new Located("/a", "y"))));
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.generic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class BacktrackingAnalyzerTest {
+  @ParameterizedTest
+  @ValueSource(strings = {"(a+)+", "(\\s*x*)*", "(x{2,})*", "(.*a){3,}", "((a+)b?)+"})
+  public void hazardous(String regex) {
+    assertThat(BacktrackingAnalyzer.findHazards(regex)).hasSize(1);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"[ \t]+$", "(a+)++", "(a++)+", "(?>a+)+", "(a|b)*", "(a*)?", "(a*){2}", "[(]+", "\\Q(a+)+\\E"})
+  public void safe(String regex) {
+    assertThat(BacktrackingAnalyzer.findHazards(regex)).isEmpty();
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Vladimir Sitnikov <sitnikov.vladimir@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.generic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PatternCacheTest {
+  @BeforeEach
+  public void clear() {
+    PatternCache.clear();
+  }
+
+  @Test
+  public void returnsCachedPattern() {
+    Pattern pattern = PatternCache.compile("a+b");
+    assertThat(PatternCache.compile("a+b")).isSameAs(pattern);
+    assertThat(PatternCache.compile("a+b", Pattern.MULTILINE)).isNotSameAs(pattern);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    Pattern recent = PatternCache.compile("recent");
+    Pattern eldest = PatternCache.compile("eldest");
+    for (int i = 0; i < PatternCache.MAX_ENTRIES - 2; i++) {
+      PatternCache.compile("p" + i);
+    }
+    // the access makes "recent" the most recently used entry, so "eldest" is evicted next
+    assertThat(PatternCache.compile("recent")).isSameAs(recent);
+    PatternCache.compile("overflow");
+
+    assertThat(PatternCache.compile("recent")).isSameAs(recent);
+    assertThat(PatternCache.compile("eldest")).isNotSameAs(eldest);
+  }
+}
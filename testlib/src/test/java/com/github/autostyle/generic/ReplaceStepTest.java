@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 DiffPlug
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.autostyle.generic;
+
+import com.github.autostyle.FormatterStep;
+import com.github.autostyle.SerializableEqualityTester;
+import com.github.autostyle.StepHarness;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+public class ReplaceStepTest {
+  @Test
+  public void behavior() throws Throwable {
+    StepHarness harness = StepHarness.forStep(ReplaceStep.create("replace", "foo", "barbaz"));
+    harness.test("foo", "barbaz");
+    harness.test("foofoo", "barbazbarbaz");
+    harness.test("a foo b foo c", "a barbaz b barbaz c");
+    harness.testUnaffected("");
+    harness.testUnaffected("fo o");
+  }
+
+  @Test
+  public void returnsSameInstanceWhenNothingMatches() throws Throwable {
+    String input = new StringBuilder("nothing to see here").toString();
+    Assertions.assertSame(input, ReplaceStep.create("replace", "foo", "bar").format(input, new File("a.txt")));
+  }
+
+  @Test
+  public void equality() {
+    new SerializableEqualityTester() {
+      String target = "foo";
+      String replacement = "bar";
+
+      @Override
+      protected void setupTest(API api) {
+        api.areDifferentThan();
+
+        target = "baz";
+        api.areDifferentThan();
+
+        replacement = "qux";
+        api.areDifferentThan();
+      }
+
+      @Override
+      protected FormatterStep create() {
+        return ReplaceStep.create("replace", target, replacement);
+      }
+    }.testEquals();
+  }
+}